@@ -0,0 +1,121 @@
+package com.scb.java.interview.test.benchmarks;
+
+import com.scb.java.interview.test.CacheBuilder;
+import com.scb.java.interview.test.CacheImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache.get under contention. Throughput and the sampled latency distribution (p99 and up)
+ * are reported for each workload and key space; run through {@link #main} to sweep 1, 4, 16
+ * and 64 threads with the GC profiler attached.
+ * <ul>
+ *     <li>HIT: every key is cached before measuring.</li>
+ *     <li>MISS: every call asks for a key never seen before, so each one loads and evicts.</li>
+ *     <li>ZIPF: Zipf(0.99) keys against a cache holding an eighth of the key space.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dcom.scb.env=PROD", "-Xmx4g"})
+public class GetBenchmark {
+
+    private static final int SAMPLES = 1 << 20;
+    private static final int SAMPLE_MASK = SAMPLES - 1;
+    private static final int[] THREADS = {1, 4, 16, 64};
+
+    public enum Workload {
+        HIT, MISS, ZIPF
+    }
+
+    @Param({"1024", "65536", "1048576"})
+    public int keySpace;
+
+    @Param({"HIT", "MISS", "ZIPF"})
+    public Workload workload;
+
+    private CacheImpl<Long, Long> cache;
+    private Long[] keys;
+    private final AtomicLong missKeys = new AtomicLong(Long.MIN_VALUE);
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private int index = ThreadLocalRandom.current().nextInt(SAMPLES);
+        private long missKey;
+        private long missLimit;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (workload) {
+            case HIT:
+                cache = CacheBuilder.newBuilder().build(key -> key);
+                final var shuffled = new Long[keySpace];
+                for (var i = 0; i < keySpace; i++) {
+                    shuffled[i] = ZipfianGenerator.scramble(i);
+                    cache.get(shuffled[i]);
+                }
+                Collections.shuffle(Arrays.asList(shuffled));
+                keys = new Long[SAMPLES];
+                for (var i = 0; i < SAMPLES; i++)
+                    keys[i] = shuffled[i % keySpace];
+                break;
+            case MISS:
+                cache = CacheBuilder.newBuilder().maximumSize(keySpace).build(key -> key);
+                break;
+            case ZIPF:
+                cache = CacheBuilder.newBuilder().maximumSize(Math.max(1, keySpace / 8)).build(key -> key);
+                keys = ZipfianGenerator.keys(SAMPLES, keySpace, 0.99, 42);
+                break;
+            default:
+                throw new IllegalStateException("Unknown workload " + workload);
+        }
+    }
+
+    @Benchmark
+    public Long get(ThreadState state) {
+        if (workload == Workload.MISS) {
+            // Threads reserve blocks of fresh keys so they never contend on one counter per call.
+            if (state.missKey == state.missLimit) {
+                state.missKey = missKeys.getAndAdd(1 << 16);
+                state.missLimit = state.missKey + (1 << 16);
+            }
+            return cache.get(state.missKey++);
+        }
+        return cache.get(keys[state.index++ & SAMPLE_MASK]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        final var commandLine = new CommandLineOptions(args);
+        for (int threads : THREADS) {
+            new Runner(new OptionsBuilder()
+                    .parent(commandLine)
+                    .include(GetBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .addProfiler("gc")
+                    .build()).run();
+        }
+    }
+}
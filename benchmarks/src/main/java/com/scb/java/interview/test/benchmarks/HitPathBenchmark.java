@@ -0,0 +1,71 @@
+package com.scb.java.interview.test.benchmarks;
+
+import com.scb.java.interview.test.CacheBuilder;
+import com.scb.java.interview.test.CacheImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hits on a warm cache. Run with {@code -prof gc}: gc.alloc.rate.norm must stay at 0 B/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dcom.scb.env=PROD")
+public class HitPathBenchmark {
+
+    private static final int SIZE = 1 << 10;
+    private static final int MASK = SIZE - 1;
+
+    @Param({"unbounded", "bounded", "expiring"})
+    public String configuration;
+
+    private CacheImpl<Integer, Integer> cache;
+    private Integer[] keys;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final var builder = CacheBuilder.newBuilder();
+        if ("bounded".equals(configuration))
+            builder.maximumSize(2 * SIZE);
+        else if ("expiring".equals(configuration))
+            builder.expireAfterAccess(Duration.ofHours(1));
+        cache = builder.build(key -> key);
+        keys = new Integer[SIZE];
+        for (var i = 0; i < SIZE; i++) {
+            keys[i] = i * 31;
+            cache.get(keys[i]);
+        }
+    }
+
+    @Benchmark
+    public Integer hit() {
+        return cache.get(keys[index++ & MASK]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HitPathBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,69 @@
+package com.scb.java.interview.test.benchmarks;
+
+import com.scb.java.interview.test.CacheBuilder;
+import com.scb.java.interview.test.EvictionPolicy;
+import com.scb.java.interview.test.LfuPolicy;
+import com.scb.java.interview.test.LruPolicy;
+import com.scb.java.interview.test.WindowTinyLfuPolicy;
+
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Replays synthetic access traces against a bounded cache for each shipped eviction policy
+ * and prints the hit rate. Hit rates are a property of the policy, not of timing, so this is
+ * a plain single-threaded replay rather than a JMH benchmark.
+ */
+public class HitRateSimulator {
+
+    private static final int ITEMS = 100_000;
+    private static final int ACCESSES = 2_000_000;
+    private static final int[] CACHE_SIZES = {500, 2_500, 10_000};
+
+    public static void main(String[] args) {
+        final var policies = new LinkedHashMap<String, Supplier<EvictionPolicy<Object>>>();
+        policies.put("LRU", LruPolicy::new);
+        policies.put("LFU", LfuPolicy::new);
+        policies.put("W-TinyLFU", WindowTinyLfuPolicy::new);
+
+        final var traces = new LinkedHashMap<String, Long[]>();
+        traces.put("zipf-0.99", ZipfianGenerator.keys(ACCESSES, ITEMS, 0.99, 7));
+        traces.put("zipf-0.8", ZipfianGenerator.keys(ACCESSES, ITEMS, 0.8, 7));
+        traces.put("zipf+scan", withScans(ZipfianGenerator.keys(ACCESSES, ITEMS, 0.99, 7)));
+
+        System.out.printf("%-10s %8s %12s%n", "trace", "size", String.join(" / ", policies.keySet()));
+        for (var trace : traces.entrySet()) {
+            for (int size : CACHE_SIZES) {
+                final var rates = new StringBuilder();
+                for (var policy : policies.values())
+                    rates.append(String.format("%6.2f%% ", 100 * hitRate(trace.getValue(), size, policy)));
+                System.out.printf("%-10s %8d %s%n", trace.getKey(), size, rates);
+            }
+        }
+    }
+
+    static double hitRate(Long[] trace, int maximumSize, Supplier<EvictionPolicy<Object>> policy) {
+        final var misses = new AtomicLong();
+        final var cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .evictionPolicy(policy)
+                .build(key -> {
+                    misses.incrementAndGet();
+                    return key;
+                });
+        for (Long key : trace)
+            cache.get(key);
+        return 1.0 - (double) misses.get() / trace.length;
+    }
+
+    // Every 100k accesses, a burst of 20k one-hit keys that should not flush the working set.
+    private static Long[] withScans(Long[] trace) {
+        var scanKey = Long.MIN_VALUE;
+        for (var start = 0; start + 20_000 <= trace.length; start += 100_000) {
+            for (var i = start; i < start + 20_000; i++)
+                trace[i] = scanKey++;
+        }
+        return trace;
+    }
+}
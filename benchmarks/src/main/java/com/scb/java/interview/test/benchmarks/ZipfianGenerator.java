@@ -0,0 +1,48 @@
+package com.scb.java.interview.test.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws ranks in [0, items) with a Zipf distribution by inverting a precomputed CDF, then
+ * scrambles them so the popular keys are spread over the whole key space.
+ */
+public class ZipfianGenerator {
+
+    private final double[] cumulative;
+    private final Random random;
+
+    public ZipfianGenerator(int items, double exponent, long seed) {
+        this.cumulative = new double[items];
+        this.random = new Random(seed);
+        var sum = 0.0;
+        for (var i = 0; i < items; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        for (var i = 0; i < items; i++)
+            cumulative[i] /= sum;
+    }
+
+    public int nextRank() {
+        final var index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+    }
+
+    public long nextKey() {
+        return scramble(nextRank());
+    }
+
+    public static long scramble(long rank) {
+        var h = rank * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    public static Long[] keys(int samples, int items, double exponent, long seed) {
+        final var generator = new ZipfianGenerator(items, exponent, seed);
+        final var keys = new Long[samples];
+        for (var i = 0; i < samples; i++)
+            keys[i] = generator.nextKey();
+        return keys;
+    }
+}
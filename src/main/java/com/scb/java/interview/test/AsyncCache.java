@@ -0,0 +1,7 @@
+package com.scb.java.interview.test;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncCache<K, V> {
+    CompletableFuture<V> get(K key);
+}
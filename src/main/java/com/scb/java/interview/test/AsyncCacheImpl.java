@@ -0,0 +1,65 @@
+package com.scb.java.interview.test;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+public class AsyncCacheImpl<K, V> implements AsyncCache<K, V> {
+
+    private final Function<K, CompletableFuture<V>> dataService;
+    private final CacheImpl<K, CompletableFuture<V>> cache;
+    private final boolean weighted;
+
+    public AsyncCacheImpl(Function<K, CompletableFuture<V>> dataService) {
+        this(dataService, CacheBuilder.newBuilder());
+    }
+
+    @SuppressWarnings("unchecked")
+    AsyncCacheImpl(Function<K, CompletableFuture<V>> dataService, CacheBuilder<? super K, ? super V> builder) {
+        this.dataService = Objects.requireNonNull(dataService);
+        this.weighted = builder.isWeighted();
+        final var weigher = (Weigher<K, V>) builder.getWeigher();
+        final Weigher<K, CompletableFuture<V>> futureWeigher = weighted
+                ? (key, future) -> isSuccess(future) ? weigher.weigh(key, future.join()) : 0
+                : Weigher.singleton();
+        this.cache = new CacheImpl<>(this::load,
+                (CacheBuilder<K, CompletableFuture<V>>) (CacheBuilder<?, ?>) builder, futureWeigher);
+    }
+
+    @Override
+    public CompletableFuture<V> get(K key) {
+        final var future = cache.get(key);
+        // The future may have failed before it was installed, in which case its callback found nothing to remove.
+        if (future.isDone() && !isSuccess(future))
+            cache.remove(key, future);
+        return future;
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private CompletableFuture<V> load(K key) {
+        final CompletableFuture<V> future;
+        try {
+            future = Objects.requireNonNull(dataService.apply(key), "data service returned a null future");
+        } catch (RuntimeException | Error e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((value, error) -> {
+            if (Objects.nonNull(error) || Objects.isNull(value))
+                cache.remove(key, future);
+            else if (weighted)
+                cache.replace(key, future, future);
+        });
+        return future;
+    }
+
+    private static boolean isSuccess(CompletableFuture<?> future) {
+        return future.isDone() && !future.isCompletedExceptionally() && Objects.nonNull(future.join());
+    }
+}
@@ -1,50 +1,52 @@
 package com.scb.java.interview.test;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-public class BlockedDataReader<K> {
-    private final Map<K, ReadWriteLock> locks;
-    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-    private final Lock readLock = readWriteLock.readLock();
+public class BlockedDataReader<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight;
 
     public BlockedDataReader() {
-        this.locks = new HashMap<>();
+        this(false);
     }
 
-    public ReadWriteLock set(K key, final ReadWriteLock readWriteLock) {
-        var newReadWriteLock = locks.get(key);
-        if (Objects.isNull(newReadWriteLock)) {
-            final var newSecondReadWriteLock = locks.get(key);
-            if(Objects.isNull(newSecondReadWriteLock)) {
-                readWriteLock.writeLock().lock();
-                locks.put(key, readWriteLock);
-                return readWriteLock;
-            }
-            newReadWriteLock = newSecondReadWriteLock;
-        }
-        return newReadWriteLock;
+    /** Holds the keys of in-flight loads weakly and compares them by identity when asked to. */
+    BlockedDataReader(boolean weakKeys) {
+        this.inFlight = weakKeys ? new WeakKeyMap<>() : new ConcurrentHashMap<>();
     }
 
-    public ReadWriteLock get(K key) {
-        readLock.lock();
-        try {
-            return locks.get(key);
-        } finally {
-            readLock.unlock();
-        }
+    public CompletableFuture<V> set(K key, final CompletableFuture<V> future) {
+        final var existing = inFlight.putIfAbsent(key, future);
+        return Objects.isNull(existing) ? future : existing;
+    }
+
+    public CompletableFuture<V> get(K key) {
+        return inFlight.get(key);
     }
 
     public boolean contains(K key) {
-        readLock.lock();
-        try {
-            return locks.containsKey(key);
-        } finally {
-            readLock.unlock();
-        }
+        return inFlight.containsKey(key);
+    }
+
+    public boolean remove(K key, final CompletableFuture<V> future) {
+        return inFlight.remove(key, future);
+    }
+
+    public Set<K> keySet() {
+        return inFlight.keySet();
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+
+    /** Releases up to the given number of futures whose keys were collected, with weak keys. */
+    int expungeStaleKeys(int maximum) {
+        if (!(inFlight instanceof WeakKeyMap))
+            return 0;
+        return ((WeakKeyMap<K, CompletableFuture<V>>) inFlight).expungeStaleEntries(maximum, (future, hash) -> { });
     }
 }
@@ -1,5 +1,43 @@
 package com.scb.java.interview.test;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
 public interface Cache<K, V> {
     V get(K key);
+
+    /**
+     * Stores the value, replacing any cached one. A load of the key already in flight will not
+     * overwrite it.
+     */
+    void put(K key, V value);
+
+    /**
+     * Discards the cached value of the key. A load of the key already in flight will not store its
+     * result, and the next read loads afresh.
+     */
+    void invalidate(K key);
+
+    void invalidateIf(Predicate<? super K> predicate);
+
+    default void invalidateAll(Iterable<? extends K> keys) {
+        for (K key : keys)
+            invalidate(key);
+    }
+
+    default void invalidateAll() {
+        invalidateIf(key -> true);
+    }
+
+    default Map<K, V> getAll(Iterable<? extends K> keys) {
+        final var result = new LinkedHashMap<K, V>();
+        for (K key : keys) {
+            final var value = get(key);
+            if (Objects.nonNull(value))
+                result.put(key, value);
+        }
+        return result;
+    }
 }
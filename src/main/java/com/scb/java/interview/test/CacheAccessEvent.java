@@ -0,0 +1,37 @@
+package com.scb.java.interview.test;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The JDK Flight Recorder form of a traced cache event. It is only created while a recording has
+ * the event enabled.
+ */
+@Name("com.scb.cache.CacheAccess")
+@Label("Cache Access")
+@Category("Cache")
+@Description("A cache hit, a wait on another caller's load, or a load")
+@StackTrace(false)
+public class CacheAccessEvent extends Event {
+
+    static final EventType TYPE = EventType.getEventType(CacheAccessEvent.class);
+
+    @Label("Cache Id")
+    int cacheId;
+
+    @Label("Read From")
+    String readFrom;
+
+    @Label("Lock Type")
+    String lockType;
+
+    @Label("Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long durationNanos;
+}
@@ -0,0 +1,634 @@
+package com.scb.java.interview.test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class CacheBuilder<K, V> {
+
+    static final long UNSET = -1;
+    static final int MAXIMUM_SEGMENTS = 1 << 16;
+    static final long MINIMUM_SEGMENT_WEIGHT = 256;
+    static final int MAXIMUM_SLAB_SIZE = 1 << 20;
+    static final int HOT_KEY_SKETCH_WIDTH = 1 << 12;
+    static final int DEFAULT_WRITE_ATTEMPTS = 5;
+    static final int DEFAULT_LOADING_THREADS = 16;
+    static final long WEIGHTED_SKETCH_SIZE = 1 << 14;
+
+    private static final AtomicInteger LOADER_COUNT = new AtomicInteger();
+
+    private long maximumSize = UNSET;
+    private long maximumWeight = UNSET;
+    private Weigher<? super K, ? super V> weigher;
+    private Supplier<? extends EvictionPolicy<? super K>> evictionPolicy;
+    private long expireAfterWriteNanos = UNSET;
+    private long expireAfterAccessNanos = UNSET;
+    private long refreshAfterWriteNanos = UNSET;
+    private Ticker ticker;
+    private Executor executor;
+    private ScheduledExecutorService scheduler;
+    private Executor loadingExecutor;
+    private long loadTimeoutNanos = UNSET;
+    private int maximumConcurrentLoads = (int) UNSET;
+    private long backoffInitialNanos = UNSET;
+    private long backoffMaximumNanos = UNSET;
+    private long staleGraceNanos = UNSET;
+    private Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> batchLoader;
+    private long negativeTimeToLiveNanos = UNSET;
+    private long negativeMaximumSize = UNSET;
+    private Supplier<? extends StatsCounter> statsCounter;
+    private int concurrencyLevel = (int) UNSET;
+    private Serializer<? super V> serializer;
+    private long offHeapMaximumBytes = UNSET;
+    private Path snapshotFile;
+    private Serializer<? super K> snapshotKeySerializer;
+    private Serializer<? super V> snapshotValueSerializer;
+    private ChangeFeed<?> changeFeed;
+    private int hotKeys = (int) UNSET;
+    private long hotKeyAgingNanos = UNSET;
+    private boolean tracing;
+    private CacheWriter<? super K, ? super V> writer;
+    private int writeBatchSize = (int) UNSET;
+    private long writeDelayNanos = UNSET;
+    private int maximumPendingWrites = (int) UNSET;
+    private int maximumWriteAttempts = (int) UNSET;
+    private ChangeFeed.Action changeAction;
+    private boolean weakKeys;
+    private ReferenceEntry.Strength valueStrength;
+
+    private CacheBuilder() {
+    }
+
+    public static CacheBuilder<Object, Object> newBuilder() {
+        return new CacheBuilder<>();
+    }
+
+    public CacheBuilder<K, V> maximumSize(long maximumSize) {
+        requireState(this.maximumSize == UNSET, "maximumSize was already set");
+        requireState(this.maximumWeight == UNSET, "maximumSize cannot be combined with maximumWeight");
+        requireArgument(maximumSize >= 0, "maximumSize must not be negative");
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    public CacheBuilder<K, V> maximumWeight(long maximumWeight) {
+        requireState(this.maximumWeight == UNSET, "maximumWeight was already set");
+        requireState(this.maximumSize == UNSET, "maximumWeight cannot be combined with maximumSize");
+        requireArgument(maximumWeight >= 0, "maximumWeight must not be negative");
+        this.maximumWeight = maximumWeight;
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K1 extends K, V1 extends V> CacheBuilder<K1, V1> weigher(Weigher<? super K1, ? super V1> weigher) {
+        requireState(Objects.isNull(this.weigher), "weigher was already set");
+        final var self = (CacheBuilder<K1, V1>) this;
+        self.weigher = Objects.requireNonNull(weigher);
+        return self;
+    }
+
+    public CacheBuilder<K, V> evictionPolicy(Supplier<? extends EvictionPolicy<? super K>> evictionPolicy) {
+        requireState(Objects.isNull(this.evictionPolicy), "evictionPolicy was already set");
+        this.evictionPolicy = Objects.requireNonNull(evictionPolicy);
+        return this;
+    }
+
+    public CacheBuilder<K, V> expireAfterWrite(Duration duration) {
+        requireState(expireAfterWriteNanos == UNSET, "expireAfterWrite was already set");
+        expireAfterWriteNanos = toNanos(duration);
+        return this;
+    }
+
+    public CacheBuilder<K, V> expireAfterAccess(Duration duration) {
+        requireState(expireAfterAccessNanos == UNSET, "expireAfterAccess was already set");
+        expireAfterAccessNanos = toNanos(duration);
+        return this;
+    }
+
+    public CacheBuilder<K, V> refreshAfterWrite(Duration duration) {
+        requireState(refreshAfterWriteNanos == UNSET, "refreshAfterWrite was already set");
+        refreshAfterWriteNanos = toNanos(duration);
+        requireArgument(refreshAfterWriteNanos > 0, "refreshAfterWrite must be positive");
+        return this;
+    }
+
+    public CacheBuilder<K, V> ticker(Ticker ticker) {
+        requireState(Objects.isNull(this.ticker), "ticker was already set");
+        this.ticker = Objects.requireNonNull(ticker);
+        return this;
+    }
+
+    public CacheBuilder<K, V> executor(Executor executor) {
+        requireState(Objects.isNull(this.executor), "executor was already set");
+        this.executor = Objects.requireNonNull(executor);
+        return this;
+    }
+
+    /**
+     * Runs each miss's load on the given executor instead of the calling thread; callers park on
+     * the load's future until it completes.
+     */
+    public CacheBuilder<K, V> loadingExecutor(Executor loadingExecutor) {
+        requireState(Objects.isNull(this.loadingExecutor), "loadingExecutor was already set");
+        this.loadingExecutor = Objects.requireNonNull(loadingExecutor);
+        return this;
+    }
+
+    /**
+     * Runs each miss's load on a virtual thread of its own.
+     *
+     * @throws UnsupportedOperationException when the running JDK has no virtual threads
+     */
+    public CacheBuilder<K, V> virtualThreadLoading() {
+        return loadingExecutor(VirtualThreads.newVirtualThreadExecutor());
+    }
+
+    /**
+     * Limits how long a caller waits for a load. Loads then run on the loading executor so that the
+     * caller that missed can give up. When none is set the cache gets a pool of its own, with
+     * {@value #DEFAULT_LOADING_THREADS} threads or the maximum number of concurrent loads, so a hung
+     * store cannot take over a shared pool.
+     */
+    public CacheBuilder<K, V> loadTimeout(Duration timeout) {
+        requireState(loadTimeoutNanos == UNSET, "loadTimeout was already set");
+        loadTimeoutNanos = toNanos(timeout);
+        requireArgument(loadTimeoutNanos > 0, "loadTimeout must be positive");
+        return this;
+    }
+
+    /**
+     * Limits the number of loads running at once. A miss that finds no free permit fails at once
+     * with a RejectedExecutionException, and a refresh that finds none is skipped.
+     */
+    public CacheBuilder<K, V> maximumConcurrentLoads(int maximumConcurrentLoads) {
+        requireState(this.maximumConcurrentLoads == UNSET, "maximumConcurrentLoads was already set");
+        requireArgument(maximumConcurrentLoads > 0, "maximumConcurrentLoads must be positive");
+        this.maximumConcurrentLoads = maximumConcurrentLoads;
+        return this;
+    }
+
+    public CacheBuilder<K, V> failureBackoff(Duration initialDelay, Duration maximumDelay) {
+        requireState(backoffInitialNanos == UNSET, "failureBackoff was already set");
+        backoffInitialNanos = toNanos(initialDelay);
+        backoffMaximumNanos = toNanos(maximumDelay);
+        requireArgument(backoffInitialNanos > 0, "initialDelay must be positive");
+        requireArgument(backoffMaximumNanos >= backoffInitialNanos, "maximumDelay must not be less than initialDelay");
+        return this;
+    }
+
+    /**
+     * Keeps expired entries for the given grace period and serves them when reloading fails or
+     * times out.
+     */
+    public CacheBuilder<K, V> serveStaleOnError(Duration grace) {
+        requireState(staleGraceNanos == UNSET, "serveStaleOnError was already set");
+        staleGraceNanos = toNanos(grace);
+        requireArgument(staleGraceNanos > 0, "grace must be positive");
+        return this;
+    }
+
+    public CacheBuilder<K, V> scheduler(ScheduledExecutorService scheduler) {
+        requireState(Objects.isNull(this.scheduler), "scheduler was already set");
+        this.scheduler = Objects.requireNonNull(scheduler);
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K1 extends K, V1 extends V> CacheBuilder<K1, V1> batchLoader(Function<Set<K1>, Map<K1, V1>> batchLoader) {
+        requireState(Objects.isNull(this.batchLoader), "batchLoader was already set");
+        final var self = (CacheBuilder<K1, V1>) this;
+        self.batchLoader = Objects.requireNonNull(batchLoader);
+        return self;
+    }
+
+    public CacheBuilder<K, V> negativeCaching(Duration timeToLive, long maximumSize) {
+        requireState(negativeTimeToLiveNanos == UNSET, "negativeCaching was already set");
+        requireArgument(maximumSize > 0, "maximumSize must be positive");
+        negativeTimeToLiveNanos = toNanos(timeToLive);
+        requireArgument(negativeTimeToLiveNanos > 0, "timeToLive must be positive");
+        negativeMaximumSize = maximumSize;
+        return this;
+    }
+
+    public CacheBuilder<K, V> concurrencyLevel(int concurrencyLevel) {
+        requireState(this.concurrencyLevel == UNSET, "concurrencyLevel was already set");
+        requireArgument(concurrencyLevel > 0, "concurrencyLevel must be positive");
+        this.concurrencyLevel = concurrencyLevel;
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K1 extends K, V1 extends V> CacheBuilder<K1, V1> offHeap(Serializer<V1> serializer, long maximumBytes) {
+        requireState(Objects.isNull(this.serializer), "offHeap was already set");
+        requireArgument(maximumBytes >= SlabAllocator.MINIMUM_CHUNK_SIZE,
+                "maximumBytes must be at least " + SlabAllocator.MINIMUM_CHUNK_SIZE);
+        final var self = (CacheBuilder<K1, V1>) this;
+        self.serializer = (Serializer<? super V1>) Objects.requireNonNull(serializer);
+        self.offHeapMaximumBytes = maximumBytes;
+        return self;
+    }
+
+    /**
+     * Warms the cache from the snapshot at the given path, if one exists, and lets
+     * {@link CacheImpl#writeSnapshot()} replace it later.
+     */
+    @SuppressWarnings("unchecked")
+    public <K1 extends K, V1 extends V> CacheBuilder<K1, V1> snapshot(Path file, Serializer<K1> keySerializer,
+                                                                     Serializer<V1> valueSerializer) {
+        requireState(Objects.isNull(this.snapshotFile), "snapshot was already set");
+        final var self = (CacheBuilder<K1, V1>) this;
+        self.snapshotFile = Objects.requireNonNull(file);
+        self.snapshotKeySerializer = (Serializer<? super K1>) Objects.requireNonNull(keySerializer);
+        self.snapshotValueSerializer = (Serializer<? super V1>) Objects.requireNonNull(valueSerializer);
+        return self;
+    }
+
+    /**
+     * Subscribes the cache to the keys the given source reports as changed. Changes are applied in
+     * batches on a background thread, either dropping the affected entries or reloading those that
+     * are cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <K1 extends K, V1 extends V> CacheBuilder<K1, V1> changeFeed(ChangeFeed<? extends K1> changeFeed,
+                                                                       ChangeFeed.Action action) {
+        requireState(Objects.isNull(this.changeFeed), "changeFeed was already set");
+        final var self = (CacheBuilder<K1, V1>) this;
+        self.changeFeed = Objects.requireNonNull(changeFeed);
+        self.changeAction = Objects.requireNonNull(action);
+        return self;
+    }
+
+    /**
+     * Tracks the given number of most read keys, most missed keys and keys with the most load time,
+     * in fixed memory. Their counts are halved every aging period.
+     */
+    public CacheBuilder<K, V> trackHotKeys(int topKeys, Duration agingPeriod) {
+        requireState(hotKeys == UNSET, "trackHotKeys was already set");
+        requireArgument(topKeys > 0, "topKeys must be positive");
+        hotKeys = topKeys;
+        hotKeyAgingNanos = toNanos(agingPeriod);
+        requireArgument(hotKeyAgingNanos > 0, "agingPeriod must be positive");
+        return this;
+    }
+
+    /** Makes {@link CacheImpl#put} and {@link CacheImpl#delete} update the store through the writer before the cache. */
+    @SuppressWarnings("unchecked")
+    public <K1 extends K, V1 extends V> CacheBuilder<K1, V1> writeThrough(CacheWriter<? super K1, ? super V1> writer) {
+        requireState(Objects.isNull(this.writer), "a writer was already set");
+        final var self = (CacheBuilder<K1, V1>) this;
+        self.writer = Objects.requireNonNull(writer);
+        return self;
+    }
+
+    /**
+     * Makes {@link CacheImpl#put} and {@link CacheImpl#delete} queue their changes for the writer,
+     * which a background thread writes in batches of up to the given size once a batch is full or
+     * its oldest change has waited the given delay. Repeated changes to a waiting key are
+     * coalesced, and changes wait for room while the given number of keys are waiting. A change
+     * that fails {@value #DEFAULT_WRITE_ATTEMPTS} times is dropped and passed to
+     * {@link CacheWriter#writeFailed}.
+     */
+    public <K1 extends K, V1 extends V> CacheBuilder<K1, V1> writeBehind(CacheWriter<? super K1, ? super V1> writer,
+                                                                        int maximumBatchSize, Duration maximumDelay,
+                                                                        int maximumPending) {
+        return writeBehind(writer, maximumBatchSize, maximumDelay, maximumPending, DEFAULT_WRITE_ATTEMPTS);
+    }
+
+    /**
+     * Queues changes for the writer as {@link #writeBehind(CacheWriter, int, Duration, int)} does,
+     * giving up on a change after the given number of failed attempts.
+     */
+    @SuppressWarnings("unchecked")
+    public <K1 extends K, V1 extends V> CacheBuilder<K1, V1> writeBehind(CacheWriter<? super K1, ? super V1> writer,
+                                                                        int maximumBatchSize, Duration maximumDelay,
+                                                                        int maximumPending, int maximumAttempts) {
+        requireState(Objects.isNull(this.writer), "a writer was already set");
+        requireArgument(maximumBatchSize > 0, "maximumBatchSize must be positive");
+        requireArgument(maximumPending >= maximumBatchSize, "maximumPending must not be less than maximumBatchSize");
+        requireArgument(maximumAttempts > 0, "maximumAttempts must be positive");
+        final var self = (CacheBuilder<K1, V1>) this;
+        self.writer = Objects.requireNonNull(writer);
+        self.writeBatchSize = maximumBatchSize;
+        self.writeDelayNanos = toNanos(maximumDelay);
+        self.maximumPendingWrites = maximumPending;
+        self.maximumWriteAttempts = maximumAttempts;
+        return self;
+    }
+
+    /**
+     * Holds keys weakly, so an entry is removed once its key is only reachable through the cache.
+     * Keys are then compared by identity rather than with {@code equals}.
+     */
+    public CacheBuilder<K, V> weakKeys() {
+        requireState(!weakKeys, "weakKeys was already set");
+        weakKeys = true;
+        return this;
+    }
+
+    /** Holds values softly, so the garbage collector may clear them when memory runs low. */
+    public CacheBuilder<K, V> softValues() {
+        return valueStrength(ReferenceEntry.Strength.SOFT);
+    }
+
+    /** Holds values weakly, so an entry is removed once its value is only reachable through the cache. */
+    public CacheBuilder<K, V> weakValues() {
+        return valueStrength(ReferenceEntry.Strength.WEAK);
+    }
+
+    private CacheBuilder<K, V> valueStrength(ReferenceEntry.Strength valueStrength) {
+        requireState(Objects.isNull(this.valueStrength), "value strength was already set");
+        this.valueStrength = valueStrength;
+        return this;
+    }
+
+    /** Records every hit, wait and load of the cache with {@link CacheTracer}. */
+    public CacheBuilder<K, V> traceEvents() {
+        requireState(!tracing, "traceEvents was already set");
+        tracing = true;
+        return this;
+    }
+
+    public CacheBuilder<K, V> recordStats() {
+        return recordStats(ConcurrentStatsCounter::new);
+    }
+
+    public CacheBuilder<K, V> recordStats(Supplier<? extends StatsCounter> statsCounter) {
+        requireState(Objects.isNull(this.statsCounter), "recordStats was already set");
+        this.statsCounter = Objects.requireNonNull(statsCounter);
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K1 extends K, V1 extends V> CacheImpl<K1, V1> build(Function<K1, V1> dataService) {
+        validate();
+        return new CacheImpl<>(dataService, (CacheBuilder<K1, V1>) this);
+    }
+
+    /** Builds a cache that uses the given batch loader instead of the configured one, leaving this builder as it is. */
+    @SuppressWarnings("unchecked")
+    <K1 extends K, V1 extends V> CacheImpl<K1, V1> build(Function<K1, V1> dataService,
+                                                         Function<Set<K1>, Map<K1, V1>> batchLoader) {
+        validate();
+        final var self = (CacheBuilder<K1, V1>) this;
+        return new CacheImpl<>(dataService, Objects.requireNonNull(batchLoader), self, self.getWeigher());
+    }
+
+    private void validate() {
+        requireState(Objects.isNull(weigher) || maximumWeight != UNSET, "weigher requires maximumWeight");
+        requireState(maximumWeight == UNSET || Objects.nonNull(weigher), "maximumWeight requires a weigher");
+        requireState(Objects.isNull(serializer) || isBounded(), "offHeap requires maximumSize or maximumWeight");
+        requireState(staleGraceNanos == UNSET || expires(), "serveStaleOnError requires expireAfterWrite or expireAfterAccess");
+        // These keep their keys strongly, which would stop weak keys from ever being collected.
+        requireState(!weakKeys || !isBounded(), "weakKeys cannot be combined with maximumSize or maximumWeight");
+        requireState(!weakKeys || negativeTimeToLiveNanos == UNSET, "weakKeys cannot be combined with negativeCaching");
+        requireState(!weakKeys || hotKeys == UNSET, "weakKeys cannot be combined with trackHotKeys");
+        requireState(!weakKeys || Objects.isNull(snapshotFile), "weakKeys cannot be combined with snapshot");
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K1 extends K, V1 extends V> AsyncCacheImpl<K1, V1> buildAsync(Function<K1, CompletableFuture<V1>> dataService) {
+        requireState(Objects.isNull(weigher) || maximumWeight != UNSET, "weigher requires maximumWeight");
+        requireState(maximumWeight == UNSET || Objects.nonNull(weigher), "maximumWeight requires a weigher");
+        requireState(refreshAfterWriteNanos == UNSET, "refreshAfterWrite is not supported by asynchronous caches");
+        requireState(Objects.isNull(batchLoader), "batchLoader is not supported by asynchronous caches");
+        requireState(negativeTimeToLiveNanos == UNSET, "negativeCaching is not supported by asynchronous caches");
+        requireState(Objects.isNull(serializer), "offHeap is not supported by asynchronous caches");
+        requireState(Objects.isNull(snapshotFile), "snapshot is not supported by asynchronous caches");
+        requireState(Objects.isNull(loadingExecutor) && loadTimeoutNanos == UNSET && maximumConcurrentLoads == UNSET
+                        && backoffInitialNanos == UNSET && staleGraceNanos == UNSET,
+                "load resilience settings are not supported by asynchronous caches");
+        requireState(Objects.isNull(changeFeed), "changeFeed is not supported by asynchronous caches");
+        requireState(hotKeys == UNSET, "trackHotKeys is not supported by asynchronous caches");
+        requireState(!tracing, "traceEvents is not supported by asynchronous caches");
+        requireState(Objects.isNull(writer), "writers are not supported by asynchronous caches");
+        requireState(!weakKeys && Objects.isNull(valueStrength), "reference keys and values are not supported by asynchronous caches");
+        return new AsyncCacheImpl<>(dataService, (CacheBuilder<K1, V1>) this);
+    }
+
+    boolean isBounded() {
+        return maximumSize != UNSET || maximumWeight != UNSET;
+    }
+
+    boolean isOffHeap() {
+        return Objects.nonNull(serializer);
+    }
+
+    long getMaximum() {
+        return maximumSize != UNSET ? maximumSize : maximumWeight;
+    }
+
+    int getSegmentCount() {
+        final var level = concurrencyLevel != UNSET ? concurrencyLevel : Runtime.getRuntime().availableProcessors();
+        var count = FrequencySketch.ceilingPowerOfTwo(Math.min(level, MAXIMUM_SEGMENTS));
+        if (isBounded()) {
+            // Each segment evicts toward its own share of the bound, so small caches are not split below a useful size.
+            final var minimumWeight = concurrencyLevel != UNSET ? 1 : MINIMUM_SEGMENT_WEIGHT;
+            final var limit = Math.max(1, getMaximum() / minimumWeight);
+            count = Math.min(count, Integer.highestOneBit((int) Math.min(limit, MAXIMUM_SEGMENTS)));
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    OffHeapStore<K, V> newOffHeapStore(int segments) {
+        if (Objects.isNull(serializer))
+            return null;
+        // Each segment gets an equal share of the off-heap budget, and at least one minimal slab.
+        final var share = Math.max(offHeapMaximumBytes / segments, SlabAllocator.MINIMUM_CHUNK_SIZE);
+        final var slabSize = (int) Math.min(MAXIMUM_SLAB_SIZE, Long.highestOneBit(share));
+        return new OffHeapStore<>((Serializer<V>) serializer, new SlabAllocator(slabSize, share));
+    }
+
+    Path getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    @SuppressWarnings("unchecked")
+    Serializer<K> getSnapshotKeySerializer() {
+        return (Serializer<K>) snapshotKeySerializer;
+    }
+
+    @SuppressWarnings("unchecked")
+    Serializer<V> getSnapshotValueSerializer() {
+        return (Serializer<V>) snapshotValueSerializer;
+    }
+
+    CacheSnapshot<K, V> openSnapshot() {
+        if (Objects.isNull(snapshotFile) || !Files.exists(snapshotFile))
+            return null;
+        try {
+            return CacheSnapshot.open(snapshotFile, getSnapshotKeySerializer(), getSnapshotValueSerializer());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    ChangeFeed<? extends K> getChangeFeed() {
+        return (ChangeFeed<? extends K>) changeFeed;
+    }
+
+    ChangeFeed.Action getChangeAction() {
+        return changeAction;
+    }
+
+    boolean isWeighted() {
+        return Objects.nonNull(weigher);
+    }
+
+    @SuppressWarnings("unchecked")
+    Weigher<K, V> getWeigher() {
+        return Objects.isNull(weigher) ? Weigher.singleton() : (Weigher<K, V>) weigher;
+    }
+
+    @SuppressWarnings("unchecked")
+    EvictionPolicy<K> newEvictionPolicy(long maximum) {
+        if (Objects.nonNull(evictionPolicy))
+            return (EvictionPolicy<K>) evictionPolicy.get();
+        // A weight bound says nothing about the entry count, so a weighted segment's sketch is capped.
+        return new WindowTinyLfuPolicy<>(isWeighted() ? Math.min(maximum, WEIGHTED_SKETCH_SIZE) : maximum);
+    }
+
+    long getExpireAfterWriteNanos() {
+        return expireAfterWriteNanos;
+    }
+
+    long getExpireAfterAccessNanos() {
+        return expireAfterAccessNanos;
+    }
+
+    long getRefreshAfterWriteNanos() {
+        return refreshAfterWriteNanos;
+    }
+
+    boolean expires() {
+        return expireAfterWriteNanos != UNSET || expireAfterAccessNanos != UNSET;
+    }
+
+    Ticker getTicker() {
+        return Objects.isNull(ticker) ? Ticker.systemTicker() : ticker;
+    }
+
+    Executor newLoadingExecutor() {
+        if (Objects.nonNull(loadingExecutor))
+            return loadingExecutor;
+        if (loadTimeoutNanos == UNSET)
+            return null;
+        final var threads = maximumConcurrentLoads != UNSET ? maximumConcurrentLoads : DEFAULT_LOADING_THREADS;
+        // Idle threads end, so the pool of an abandoned cache does not outlive it.
+        final var pool = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), task -> {
+            final var thread = new Thread(task, "cache-loader-" + LOADER_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    long getLoadTimeoutNanos() {
+        return loadTimeoutNanos;
+    }
+
+    Semaphore newLoadPermits() {
+        return maximumConcurrentLoads == UNSET ? null : new Semaphore(maximumConcurrentLoads);
+    }
+
+    FailureBackoff<K> newFailureBackoff() {
+        return backoffInitialNanos == UNSET ? null : new FailureBackoff<>(backoffInitialNanos, backoffMaximumNanos, getTicker());
+    }
+
+    long getStaleGraceNanos() {
+        return staleGraceNanos == UNSET ? 0 : staleGraceNanos;
+    }
+
+    Executor getExecutor() {
+        return Objects.isNull(executor) ? ForkJoinPool.commonPool() : executor;
+    }
+
+    @SuppressWarnings("unchecked")
+    Function<Set<K>, Map<K, V>> getBatchLoader() {
+        return (Function<Set<K>, Map<K, V>>) (Function<?, ?>) batchLoader;
+    }
+
+    NegativeCache<K> newNegativeCache() {
+        return negativeTimeToLiveNanos == UNSET
+                ? null
+                : new NegativeCache<>(negativeTimeToLiveNanos, negativeMaximumSize, getTicker());
+    }
+
+    HotKeyTracker<K> newHotKeyTracker() {
+        return hotKeys == UNSET
+                ? HotKeyTracker.disabled()
+                : new HotKeyTracker<>(hotKeys, Math.max(HOT_KEY_SKETCH_WIDTH, 64 * hotKeys), hotKeyAgingNanos, getTicker());
+    }
+
+    @SuppressWarnings("unchecked")
+    CacheWriter<K, V> getWriter() {
+        return writeBatchSize == UNSET ? (CacheWriter<K, V>) writer : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    WriteBehindQueue<K, V> startWriteBehind(Object owner) {
+        return writeBatchSize == UNSET
+                ? null
+                : WriteBehindQueue.start((CacheWriter<K, V>) writer, writeBatchSize, writeDelayNanos, maximumPendingWrites,
+                        maximumWriteAttempts, owner);
+    }
+
+    boolean isTracing() {
+        return tracing;
+    }
+
+    boolean hasWeakKeys() {
+        return weakKeys;
+    }
+
+    ReferenceEntry.Strength getValueStrength() {
+        return Objects.isNull(valueStrength) ? ReferenceEntry.Strength.STRONG : valueStrength;
+    }
+
+    StatsCounter newStatsCounter() {
+        return Objects.isNull(statsCounter)
+                ? StatsCounter.disabledStatsCounter()
+                : Objects.requireNonNull(statsCounter.get(), "statsCounter supplier returned null");
+    }
+
+    ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    private static long toNanos(Duration duration) {
+        requireArgument(!duration.isNegative(), "duration must not be negative");
+        try {
+            return duration.toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    static void requireState(boolean expression, String message) {
+        if (!expression)
+            throw new IllegalStateException(message);
+    }
+
+    static void requireArgument(boolean expression, String message) {
+        if (!expression)
+            throw new IllegalArgumentException(message);
+    }
+}
@@ -0,0 +1,84 @@
+package com.scb.java.interview.test;
+
+import java.util.StringJoiner;
+
+public class CacheEntry<K, V> {
+
+    private final K key;
+    private final V value;
+    private final int weight;
+    private volatile long writeTime;
+    private volatile long accessTime;
+
+    // Guarded by the owning cache's eviction lock.
+    private long timerTime;
+    private CacheEntry<K, V> previousInTimer;
+    private CacheEntry<K, V> nextInTimer;
+
+    public CacheEntry(K key, V value, int weight) {
+        this.key = key;
+        this.value = value;
+        this.weight = weight;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public long getWriteTime() {
+        return writeTime;
+    }
+
+    void setWriteTime(long writeTime) {
+        this.writeTime = writeTime;
+    }
+
+    public long getAccessTime() {
+        return accessTime;
+    }
+
+    void setAccessTime(long accessTime) {
+        this.accessTime = accessTime;
+    }
+
+    long getTimerTime() {
+        return timerTime;
+    }
+
+    void setTimerTime(long timerTime) {
+        this.timerTime = timerTime;
+    }
+
+    CacheEntry<K, V> getPreviousInTimer() {
+        return previousInTimer;
+    }
+
+    void setPreviousInTimer(CacheEntry<K, V> previousInTimer) {
+        this.previousInTimer = previousInTimer;
+    }
+
+    CacheEntry<K, V> getNextInTimer() {
+        return nextInTimer;
+    }
+
+    void setNextInTimer(CacheEntry<K, V> nextInTimer) {
+        this.nextInTimer = nextInTimer;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CacheEntry.class.getSimpleName() + "[", "]")
+                .add("key=" + getKey())
+                .add("value=" + getValue())
+                .add("weight=" + weight)
+                .toString();
+    }
+}
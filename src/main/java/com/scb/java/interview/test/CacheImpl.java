@@ -1,83 +1,1311 @@
 package com.scb.java.interview.test;
 
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public class CacheImpl<K, V> implements Cache<K, V> {
 
+    private static final int REFERENCE_DRAIN_SLICE = 16;
+    private static final int WRITE_STRIPES = 64;
+
     private final Function<K, V> dataService;
-    private final ConcurrentMap<K, V> dataCache;
-    private final BlockedDataReader<K> blockedDataReader;
+    private final Function<Set<K>, Map<K, V>> batchLoader;
+    private final ConcurrentMap<K, CacheEntry<K, V>> dataCache;
+    private final NegativeCache<K> negativeCache;
+    private final boolean offHeap;
+    private final CacheSnapshot<K, V> warmSnapshot;
+    private final Path snapshotFile;
+    private final Serializer<K> snapshotKeySerializer;
+    private final Serializer<V> snapshotValueSerializer;
+    private final StatsCounter statsCounter;
+    private final boolean recordsStats;
+    private final HotKeyTracker<K> accessFrequency;
+    private final HotKeyTracker<K> missFrequency;
+    private final HotKeyTracker<K> loadTime;
+    private final boolean tracing;
+    private final int cacheId;
+    private final boolean timesLoads;
+    private final CacheWriter<K, V> writer;
+    private final WriteBehindQueue<K, V> writeBehind;
+    private final Lock[] writeLocks;
+    private final boolean weakKeys;
+    private final ReferenceEntry.Strength valueStrength;
+    private final boolean referenceEntries;
+    private final ReferenceQueue<V> valueQueue;
+
+    private final boolean bounded;
+    private final long maximumWeight;
+    private final Weigher<K, V> weigher;
+
+    private final boolean expires;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final long refreshAfterWriteNanos;
+    private final boolean refreshes;
+    private final boolean timed;
+    private final Ticker ticker;
+    private final Executor executor;
+    private final Executor loadingExecutor;
+    private final long loadTimeoutNanos;
+    private final Semaphore loadPermits;
+    private final FailureBackoff<K> failureBackoff;
+    private final long staleGraceNanos;
+
+    private final Segment[] segments;
+    private final int segmentMask;
 
+    @SuppressWarnings("unchecked")
     public CacheImpl(Function<K, V> dataService) {
-        this.dataService = dataService;
-        this.dataCache = new ConcurrentHashMap<>();
-        this.blockedDataReader = new BlockedDataReader<>();
+        this(dataService, (CacheBuilder<K, V>) (CacheBuilder<?, ?>) CacheBuilder.newBuilder());
+    }
+
+    CacheImpl(Function<K, V> dataService, CacheBuilder<K, V> builder) {
+        this(dataService, builder, builder.getWeigher());
+    }
+
+    CacheImpl(Function<K, V> dataService, CacheBuilder<K, V> builder, Weigher<K, V> weigher) {
+        this(dataService, builder.getBatchLoader(), builder, weigher);
+    }
+
+    CacheImpl(Function<K, V> dataService, Function<Set<K>, Map<K, V>> batchLoader, CacheBuilder<K, V> builder,
+              Weigher<K, V> weigher) {
+        this.dataService = Objects.requireNonNull(dataService);
+        this.batchLoader = batchLoader;
+        this.weakKeys = builder.hasWeakKeys();
+        this.valueStrength = builder.getValueStrength();
+        this.referenceEntries = weakKeys || valueStrength != ReferenceEntry.Strength.STRONG;
+        this.valueQueue = valueStrength != ReferenceEntry.Strength.STRONG ? new ReferenceQueue<>() : null;
+        this.dataCache = weakKeys ? new WeakKeyMap<>() : new ConcurrentHashMap<>();
+        this.negativeCache = builder.newNegativeCache();
+        this.offHeap = builder.isOffHeap();
+        this.warmSnapshot = builder.openSnapshot();
+        this.snapshotFile = builder.getSnapshotFile();
+        this.snapshotKeySerializer = builder.getSnapshotKeySerializer();
+        this.snapshotValueSerializer = builder.getSnapshotValueSerializer();
+        this.statsCounter = builder.newStatsCounter();
+        this.recordsStats = statsCounter != StatsCounter.disabledStatsCounter();
+        this.accessFrequency = builder.newHotKeyTracker();
+        this.missFrequency = builder.newHotKeyTracker();
+        this.loadTime = builder.newHotKeyTracker();
+        this.tracing = builder.isTracing();
+        this.cacheId = CacheTracer.nextCacheId();
+        this.timesLoads = recordsStats || loadTime.isEnabled() || tracing;
+        this.writer = builder.getWriter();
+        this.writeBehind = builder.startWriteBehind(this);
+        this.writeLocks = Objects.nonNull(writer) || Objects.nonNull(writeBehind) ? newWriteLocks() : null;
+        this.bounded = builder.isBounded();
+        this.maximumWeight = bounded ? builder.getMaximum() : CacheBuilder.UNSET;
+        this.weigher = weigher;
+        this.expires = builder.expires();
+        this.expireAfterWriteNanos = builder.getExpireAfterWriteNanos();
+        this.expireAfterAccessNanos = builder.getExpireAfterAccessNanos();
+        this.refreshAfterWriteNanos = builder.getRefreshAfterWriteNanos();
+        this.refreshes = refreshAfterWriteNanos != CacheBuilder.UNSET;
+        this.timed = expires || refreshes;
+        this.ticker = builder.getTicker();
+        this.executor = builder.getExecutor();
+        this.loadingExecutor = builder.newLoadingExecutor();
+        this.loadTimeoutNanos = builder.getLoadTimeoutNanos();
+        this.loadPermits = builder.newLoadPermits();
+        this.failureBackoff = builder.newFailureBackoff();
+        this.staleGraceNanos = builder.getStaleGraceNanos();
+        this.segments = newSegments(builder);
+        this.segmentMask = segments.length - 1;
+        if (expires && Objects.nonNull(builder.getScheduler()))
+            scheduleCleanUp(builder.getScheduler(), this);
+        if (Objects.nonNull(builder.getChangeFeed()))
+            ChangeFeedConsumer.start(builder.getChangeFeed(), builder.getChangeAction(), this);
     }
 
     @Override
     public V get(K key) {
-        if (!dataCache.containsKey(key)) {
-            if (!blockedDataReader.contains(key)) {
-                return readValueFromDataService(key);
-            } else {
-                final var readWriteLock = blockedDataReader.get(key);
-                return readValueFromCache(key, readWriteLock);
+        accessFrequency.recordHit(key);
+        final var entry = dataCache.get(key);
+        // A value the garbage collector cleared counts as a miss.
+        final var value = Objects.isNull(entry) ? null : entry.getValue();
+        if (Objects.nonNull(value)) {
+            final var now = timed ? ticker.read() : 0L;
+            if (!expires || !isExpired(entry, now)) {
+                afterRead(entry, now);
+                statsCounter.recordHits(1);
+                if (tracing)
+                    CacheTracer.record(cacheId, ThreadDetail.CACHE_NO_LOCK, System.nanoTime(), 0);
+                ThreadDetailService.capture(ThreadDetail.CACHE_NO_LOCK);
+                return value;
+            }
+        }
+        if (Objects.nonNull(negativeCache) && negativeCache.contains(key)) {
+            statsCounter.recordHits(1);
+            if (tracing)
+                CacheTracer.record(cacheId, ThreadDetail.CACHE_NO_LOCK, System.nanoTime(), 0);
+            ThreadDetailService.capture(ThreadDetail.CACHE_NO_LOCK);
+            return null;
+        }
+        return readValueFromDataService(key);
+    }
+
+    @Override
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        if (Objects.isNull(batchLoader))
+            return Cache.super.getAll(keys);
+
+        final var requested = new LinkedHashSet<K>();
+        keys.forEach(requested::add);
+        final var found = new HashMap<K, V>();
+        var hits = 0;
+        final var owned = new LinkedHashMap<K, CompletableFuture<V>>();
+        final var joined = new LinkedHashMap<K, CompletableFuture<V>>();
+        final var now = timed ? ticker.read() : 0L;
+
+        for (K key : requested) {
+            accessFrequency.recordHit(key);
+            final var entry = dataCache.get(key);
+            final var value = Objects.isNull(entry) ? null : entry.getValue();
+            if (Objects.nonNull(value) && !(expires && isExpired(entry, now))) {
+                afterRead(entry, now);
+                found.put(key, value);
+                hits++;
+                continue;
+            }
+            if (Objects.nonNull(negativeCache) && negativeCache.contains(key)) {
+                hits++;
+                continue;
+            }
+            final var future = new LoadingFuture<V>();
+            future.loader = Thread.currentThread();
+            final var inFlight = segmentFor(key).blockedDataReader.set(key, future);
+            missFrequency.record(key, 1);
+            if (inFlight == future)
+                owned.put(key, future);
+            else
+                joined.put(key, inFlight);
+        }
+        statsCounter.recordHits(hits);
+        statsCounter.recordMisses(owned.size() + joined.size());
+        if (!found.isEmpty())
+            ThreadDetailService.capture(ThreadDetail.CACHE_NO_LOCK);
+
+        // Our own keys are loaded before joining anyone else's, so two overlapping batches cannot wait on each other.
+        if (!owned.isEmpty())
+            readValuesFromDataService(owned, found);
+        for (var inFlight : joined.entrySet()) {
+            final var value = readValueFromCache(inFlight.getKey(), inFlight.getValue());
+            if (Objects.nonNull(value))
+                found.put(inFlight.getKey(), value);
+        }
+
+        final var result = new LinkedHashMap<K, V>();
+        for (K key : requested) {
+            final var value = found.get(key);
+            if (Objects.nonNull(value))
+                result.put(key, value);
+        }
+        return result;
+    }
+
+    /**
+     * Stores the value, writing it to the store first when the cache has a writer: at once in
+     * write-through mode, or through the write-behind queue, which may wait for room. The store and
+     * the cache are both updated under a lock striped by key, so concurrent changes to a key reach
+     * the store in the order they reach the cache, while the key's mapping is never held during
+     * store I/O.
+     */
+    @Override
+    public void put(K key, V value) {
+        Objects.requireNonNull(value);
+        if (Objects.isNull(writeLocks)) {
+            putEntry(key, value);
+            return;
+        }
+        final var lock = writeLockFor(key);
+        lock.lock();
+        try {
+            if (Objects.nonNull(writeBehind))
+                writeBehind.write(key, value);
+            else
+                writer.write(key, value);
+            putEntry(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void putEntry(K key, V value) {
+        final var segment = segmentFor(key);
+        final var entry = newEntry(key, value);
+        final var previous = new AtomicReference<CacheEntry<K, V>>();
+        dataCache.compute(key, (ignored, existing) -> {
+            abandonLoad(segment, key);
+            previous.set(existing);
+            return entry;
+        });
+        segment.afterWrite(entry, previous.get());
+        forget(segment, key);
+        if (referenceEntries)
+            drainReferences(segment, REFERENCE_DRAIN_SLICE);
+    }
+
+    @Override
+    public void invalidate(K key) {
+        invalidate(key, false);
+    }
+
+    /**
+     * Deletes the key from the store through the cache's writer, as {@link #put} writes it, and
+     * invalidates it. Without a writer this only invalidates the key.
+     */
+    public void delete(K key) {
+        invalidate(key, true);
+    }
+
+    private void invalidate(K key, boolean delete) {
+        if (!delete || Objects.isNull(writeLocks)) {
+            removeEntry(key);
+            return;
+        }
+        final var lock = writeLockFor(key);
+        lock.lock();
+        try {
+            if (Objects.nonNull(writeBehind))
+                writeBehind.delete(key);
+            else
+                writer.delete(key);
+            removeEntry(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeEntry(K key) {
+        final var segment = segmentFor(key);
+        final var removed = new AtomicReference<CacheEntry<K, V>>();
+        dataCache.compute(key, (ignored, existing) -> {
+            abandonLoad(segment, key);
+            removed.set(existing);
+            return null;
+        });
+        if (Objects.nonNull(removed.get()))
+            segment.afterRemoval(removed.get());
+        forget(segment, key);
+    }
+
+    /**
+     * Loads the keys in the background, as {@link #preload} does, with a known total for progress
+     * reports.
+     */
+    public WarmUp<K> warmUp(Collection<? extends K> keys, WarmUpOptions<K> options) {
+        return startWarmUp(keys.iterator(), keys.size(), options);
+    }
+
+    /**
+     * Loads the keys in the background, in parallel on the options' executor and through the batch
+     * loader when there is one, and returns a handle that reports progress and can cancel. Keys
+     * already cached are not loaded again.
+     */
+    public WarmUp<K> preload(Stream<? extends K> keys, WarmUpOptions<K> options) {
+        return startWarmUp(keys.iterator(), CacheBuilder.UNSET, options);
+    }
+
+    private WarmUp<K> startWarmUp(Iterator<? extends K> keys, long total, WarmUpOptions<K> options) {
+        if (Objects.nonNull(batchLoader))
+            return WarmUp.start(keys, total, options.getBatchSize(), this::getAll, options);
+        return WarmUp.start(keys, total, 1, batch -> get(batch.get(0)), options);
+    }
+
+    /**
+     * Waits until every write-behind change has reached the store.
+     *
+     * @throws IllegalStateException when the writer fails meanwhile
+     */
+    public void flushWrites() {
+        if (Objects.nonNull(writeBehind))
+            writeBehind.flush();
+    }
+
+    @Override
+    public void invalidateIf(Predicate<? super K> predicate) {
+        for (K key : dataCache.keySet()) {
+            if (predicate.test(key))
+                invalidate(key);
+        }
+        for (var segment : segments) {
+            for (K key : segment.blockedDataReader.keySet()) {
+                if (predicate.test(key))
+                    invalidate(key);
+            }
+        }
+        if (Objects.nonNull(negativeCache))
+            negativeCache.removeIf(predicate);
+        if (Objects.nonNull(warmSnapshot))
+            warmSnapshot.removeIf(predicate);
+        if (offHeap) {
+            // A segment only demotes its own entries under its lock, so one segment at a time suffices.
+            for (var segment : segments) {
+                segment.evictionLock.lock();
+                try {
+                    segment.offHeapStore.removeIf(predicate);
+                    segment.demotions.keySet().removeIf(predicate);
+                } finally {
+                    segment.evictionLock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cached value and counts a hit, or returns null without counting a miss. The key
+     * is only used for the lookup and is never kept, so a caller may reuse a mutable one and build
+     * a key to keep only when it has to call {@link #get}.
+     */
+    V getIfHit(K key) {
+        final var entry = dataCache.get(key);
+        final var value = Objects.isNull(entry) ? null : entry.getValue();
+        if (Objects.isNull(value))
+            return null;
+        final var now = timed ? ticker.read() : 0L;
+        if (expires && isExpired(entry, now))
+            return null;
+        accessFrequency.recordHit(entry.getKey());
+        afterRead(entry, now);
+        statsCounter.recordHits(1);
+        if (tracing)
+            CacheTracer.record(cacheId, ThreadDetail.CACHE_NO_LOCK, System.nanoTime(), 0);
+        ThreadDetailService.capture(ThreadDetail.CACHE_NO_LOCK);
+        return value;
+    }
+
+    /**
+     * Returns the cached value without loading it. The lookup is not recorded in the statistics
+     * and does not count as an access for eviction or expiry.
+     */
+    public V getIfPresent(K key) {
+        final var entry = dataCache.get(key);
+        if (Objects.isNull(entry) || (expires && isExpired(entry, ticker.read())))
+            return null;
+        return entry.getValue();
+    }
+
+    /** Returns the most read keys, when hot key tracking is enabled. */
+    public List<HotKeyTracker.HotKey<K>> hotKeys() {
+        return accessFrequency.topKeys();
+    }
+
+    /** Returns the keys that missed most often, when hot key tracking is enabled. */
+    public List<HotKeyTracker.HotKey<K>> topMissedKeys() {
+        return missFrequency.topKeys();
+    }
+
+    /** Returns the keys that took the most time to load, in microseconds, when hot key tracking is enabled. */
+    public List<HotKeyTracker.HotKey<K>> topLoadTimeKeys() {
+        return loadTime.topKeys();
+    }
+
+    /** Identifies the cache in the events recorded by {@link CacheTracer}. */
+    public int id() {
+        return cacheId;
+    }
+
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    public long estimatedSize() {
+        return dataCache.size();
+    }
+
+    /**
+     * Returns the total weight of the cached entries, as measured by the weigher, while the cache
+     * is bounded; otherwise the number of entries.
+     */
+    public long weightedSize() {
+        if (!bounded)
+            return dataCache.size();
+        var weightedSize = 0L;
+        for (var segment : segments)
+            weightedSize += segment.weightedSize;
+        return weightedSize;
+    }
+
+    public void cleanUp() {
+        if (referenceEntries) {
+            for (var segment : segments)
+                drainReferences(segment, Integer.MAX_VALUE);
+        }
+        if (!bounded && !expires)
+            return;
+        for (var segment : segments)
+            segment.cleanUp();
+    }
+
+    /**
+     * Writes the current entries to the snapshot file configured on the builder. Entries written
+     * while the snapshot is taken may or may not be included.
+     */
+    public void writeSnapshot() throws IOException {
+        CacheBuilder.requireState(Objects.nonNull(snapshotFile), "no snapshot file was configured");
+        final var now = ticker.read();
+        final var wallClock = System.currentTimeMillis();
+        final var entries = new ArrayList<CacheSnapshot.Entry<K, V>>(dataCache.size());
+        for (var entry : dataCache.values()) {
+            final var value = entry.getValue();
+            if (Objects.isNull(value) || (expires && isExpired(entry, now)))
+                continue;
+            final var writtenAt = timed ? wallClock - TimeUnit.NANOSECONDS.toMillis(now - entry.getWriteTime()) : wallClock;
+            final var expirationTime = expires ? expirationTime(entry) : Long.MAX_VALUE;
+            final var expiresAt = expirationTime == Long.MAX_VALUE
+                    ? CacheSnapshot.NEVER
+                    : wallClock + TimeUnit.NANOSECONDS.toMillis(expirationTime - now);
+            entries.add(new CacheSnapshot.Entry<>(entry.getKey(), value, writtenAt, expiresAt));
+        }
+        CacheSnapshot.write(snapshotFile, entries, snapshotKeySerializer, snapshotValueSerializer);
+    }
+
+    int segmentCount() {
+        return segments.length;
+    }
+
+    boolean remove(K key, V value) {
+        final var entry = dataCache.get(key);
+        if (Objects.isNull(entry) || entry.getValue() != value || !dataCache.remove(key, entry))
+            return false;
+        segmentFor(key).afterRemoval(entry);
+        return true;
+    }
+
+    boolean replace(K key, V oldValue, V newValue) {
+        final var entry = dataCache.get(key);
+        if (Objects.isNull(entry) || entry.getValue() != oldValue)
+            return false;
+        final var replacement = newEntry(key, newValue);
+        if (!dataCache.replace(key, entry, replacement))
+            return false;
+        segmentFor(key).afterWrite(replacement, entry);
+        return true;
+    }
+
+    private void abandonLoad(Segment segment, K key) {
+        final var loading = segment.blockedDataReader.get(key);
+        if (Objects.nonNull(loading))
+            segment.blockedDataReader.remove(key, loading);
+    }
+
+    private void forget(Segment segment, K key) {
+        if (Objects.nonNull(negativeCache))
+            negativeCache.remove(key);
+        if (Objects.nonNull(warmSnapshot))
+            warmSnapshot.remove(key);
+        if (Objects.nonNull(failureBackoff))
+            failureBackoff.recordSuccess(key);
+        if (offHeap) {
+            segment.evictionLock.lock();
+            try {
+                segment.offHeapStore.remove(key);
+                segment.demotions.remove(key);
+            } finally {
+                segment.evictionLock.unlock();
             }
-        } else {
-            ThreadDetailService.capture(Thread.currentThread().getName(),
-                    new ThreadDetail(ThreadDetail.ReadFrom.CACHE, ThreadDetail.LockType.NO_LOCK));
-            return dataCache.get(key);
         }
     }
 
     private V readValueFromDataService(K key) {
         V value;
 
-        final var oldLock = new ReentrantReadWriteLock();
-        final var newLock = blockedDataReader.set(key, oldLock);
+        statsCounter.recordMisses(1);
+        missFrequency.record(key, 1);
+        final var blockedDataReader = segmentFor(key).blockedDataReader;
+        final var future = new LoadingFuture<V>();
+        final var inFlight = blockedDataReader.set(key, future);
 
-        if (newLock != oldLock)
-            return readValueFromCache(key, newLock);
+        if (inFlight != future)
+            return readValueFromCache(key, inFlight);
+
+        if (Objects.nonNull(loadingExecutor)) {
+            try {
+                loadingExecutor.execute(() -> {
+                    try {
+                        loadValue(key, future, blockedDataReader);
+                    } catch (RuntimeException | Error e) {
+                        // The failure reaches the caller through the future.
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                return loadValue(key, future, blockedDataReader);
+            }
+            return readValueFromCache(key, future);
+        }
+        return loadValue(key, future, blockedDataReader);
+    }
+
+    private V loadValue(K key, LoadingFuture<V> future, BlockedDataReader<K, V> blockedDataReader) {
+        V value;
+
+        future.loader = Thread.currentThread();
 
         try {
-            ThreadDetailService.induceSleep(1000, ThreadDetailService.NON_PROD);
-            value = dataService.apply(key);
-            if (value != null) {
-                dataCache.put(key, value);
+            // A load may have completed between the miss and the registration above.
+            final var entry = dataCache.get(key);
+            final var cached = Objects.isNull(entry) ? null : entry.getValue();
+            if (Objects.nonNull(cached) && !(expires && isExpired(entry, ticker.read()))) {
+                future.complete(cached);
+                ThreadDetailService.capture(ThreadDetail.CACHE_NO_LOCK);
+                return cached;
+            }
+            final var promoted = promote(key);
+            value = Objects.isNull(promoted) ? null : promoted.getValue();
+            if (Objects.nonNull(value)) {
+                install(promoted, future);
+            } else {
+                value = load(key);
+                if (value != null) {
+                    install(newEntry(key, value), future);
+                } else if (Objects.nonNull(negativeCache)) {
+                    rememberAbsent(key, future);
+                }
+            }
+            future.complete(value);
+        } catch (RuntimeException | Error e) {
+            final var stale = e instanceof RuntimeException ? staleValue(key) : null;
+            if (Objects.nonNull(stale)) {
+                future.complete(stale);
+                return stale;
             }
+            future.completeExceptionally(e);
+            throw e;
         } finally {
-            newLock.writeLock().unlock();
+            blockedDataReader.remove(key, future);
         }
         if (Objects.nonNull(value))
-            ThreadDetailService.capture(Thread.currentThread().getName(),
-                    new ThreadDetail(ThreadDetail.ReadFrom.DATASERVICE, ThreadDetail.LockType.WRITE));
+            ThreadDetailService.capture(ThreadDetail.DATASERVICE_WRITE);
 
         return value;
     }
 
-    private V readValueFromCache(K key, final ReadWriteLock readWriteLock) {
-        V value;
+    /**
+     * Loads the keys this caller registered as {@link #readValueFromDataService} loads one: on the
+     * loading executor within the load timeout when there is one, not while a key backs off after a
+     * failure, and serving stale values for keys the batch could not load.
+     */
+    private void readValuesFromDataService(Map<K, CompletableFuture<V>> owned, Map<K, V> found) {
+        promoteAll(owned, found);
+        if (owned.isEmpty())
+            return;
+        if (Objects.nonNull(loadingExecutor)) {
+            try {
+                loadingExecutor.execute(() -> {
+                    try {
+                        loadValues(owned);
+                    } catch (RuntimeException | Error e) {
+                        // The failure reaches the callers through the futures.
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                loadValues(owned);
+            }
+        } else {
+            loadValues(owned);
+        }
+        // One deadline covers the whole batch, however many keys it waits for.
+        final var deadline = System.nanoTime() + loadTimeoutNanos;
+        for (var inFlight : owned.entrySet()) {
+            final var value = Objects.isNull(loadingExecutor)
+                    ? join(inFlight.getValue())
+                    : join(inFlight.getKey(), inFlight.getValue(), Math.max(0, deadline - System.nanoTime()));
+            if (Objects.nonNull(value))
+                found.put(inFlight.getKey(), value);
+        }
+    }
 
-        if (dataCache.containsKey(key)) {
-            ThreadDetailService.capture(Thread.currentThread().getName(),
-                    new ThreadDetail(ThreadDetail.ReadFrom.CACHE, ThreadDetail.LockType.NO_LOCK));
-            return dataCache.get(key);
+    /** Completes and removes the keys that are cached or can be promoted from a lower tier. */
+    private void promoteAll(Map<K, CompletableFuture<V>> owned, Map<K, V> found) {
+        try {
+            final var now = expires ? ticker.read() : 0L;
+            final var iterator = owned.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final var inFlight = iterator.next();
+                final var entry = dataCache.get(inFlight.getKey());
+                var value = Objects.isNull(entry) ? null : entry.getValue();
+                if (Objects.isNull(value) || (expires && isExpired(entry, now))) {
+                    final var promoted = promote(inFlight.getKey());
+                    value = Objects.isNull(promoted) ? null : promoted.getValue();
+                    if (Objects.nonNull(value))
+                        install(promoted, inFlight.getValue());
+                }
+                if (Objects.nonNull(value)) {
+                    found.put(inFlight.getKey(), value);
+                    inFlight.getValue().complete(value);
+                    segmentFor(inFlight.getKey()).blockedDataReader.remove(inFlight.getKey(), inFlight.getValue());
+                    iterator.remove();
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            owned.forEach((key, future) -> {
+                future.completeExceptionally(e);
+                segmentFor(key).blockedDataReader.remove(key, future);
+            });
+            throw e;
+        }
+    }
+
+    /**
+     * Loads the keys in one batch and completes their futures. When a key is still backing off or
+     * the batch fails, each key gets its stale value if it has one, and the failure otherwise.
+     */
+    private void loadValues(Map<K, CompletableFuture<V>> owned) {
+        Map<K, V> values = null;
+        Throwable failure = null;
+        try {
+            if (Objects.nonNull(failureBackoff)) {
+                for (K key : owned.keySet())
+                    failureBackoff.check(key);
+            }
+            values = loadAll(owned.keySet());
+            for (var inFlight : owned.entrySet()) {
+                final var value = Objects.isNull(values) ? null : values.get(inFlight.getKey());
+                if (Objects.nonNull(value))
+                    install(newEntry(inFlight.getKey(), value), inFlight.getValue());
+                else if (Objects.nonNull(negativeCache))
+                    rememberAbsent(inFlight.getKey(), inFlight.getValue());
+            }
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        } finally {
+            // Unregistered before completing, so a caller woken by the outcome cannot join this load again.
+            owned.forEach((key, future) -> segmentFor(key).blockedDataReader.remove(key, future));
+        }
+        if (Objects.isNull(failure)) {
+            for (var inFlight : owned.entrySet())
+                inFlight.getValue().complete(Objects.isNull(values) ? null : values.get(inFlight.getKey()));
+            ThreadDetailService.capture(ThreadDetail.DATASERVICE_WRITE);
+            return;
+        }
+        var failed = false;
+        for (var inFlight : owned.entrySet()) {
+            final var stale = failure instanceof RuntimeException ? staleValue(inFlight.getKey()) : null;
+            if (Objects.nonNull(stale)) {
+                inFlight.getValue().complete(stale);
+            } else {
+                inFlight.getValue().completeExceptionally(failure);
+                failed = true;
+            }
         }
+        if (failed && failure instanceof Error)
+            throw (Error) failure;
+        if (failed)
+            throw (RuntimeException) failure;
+    }
 
-        readWriteLock.readLock().lock();
+    private V readValueFromCache(K key, final CompletableFuture<V> future) {
+        // Waiting on a load this thread is running, from inside its own loader, would never end.
+        if (future instanceof LoadingFuture && ((LoadingFuture<V>) future).loader == Thread.currentThread())
+            throw new IllegalStateException("Recursive load of " + key);
+        final var start = tracing ? System.nanoTime() : 0L;
+        final V value;
         try {
-            value = dataCache.get(key);
+            value = loadTimeoutNanos == CacheBuilder.UNSET ? join(future) : join(key, future, loadTimeoutNanos);
         } finally {
-            readWriteLock.readLock().unlock();
+            if (tracing)
+                CacheTracer.record(cacheId, ThreadDetail.CACHE_READ, start, System.nanoTime() - start);
         }
-        ThreadDetailService.capture(Thread.currentThread().getName(),
-                new ThreadDetail(ThreadDetail.ReadFrom.CACHE, ThreadDetail.LockType.READ));
+        ThreadDetailService.capture(ThreadDetail.CACHE_READ);
 
         return value;
     }
+
+    private V join(K key, CompletableFuture<V> future, long timeoutNanos) {
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            final var stale = staleValue(key);
+            if (Objects.nonNull(stale))
+                return stale;
+            throw new LoadTimeoutException("Load of " + key + " did not complete within " + Duration.ofNanos(loadTimeoutNanos));
+        } catch (ExecutionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new CompletionException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private V staleValue(K key) {
+        if (staleGraceNanos == 0)
+            return null;
+        final var entry = dataCache.get(key);
+        if (Objects.isNull(entry) || ticker.read() - removalTime(entry) >= 0)
+            return null;
+        return entry.getValue();
+    }
+
+    private void refresh(Segment segment, K key, CacheEntry<K, V> entry) {
+        final var blockedDataReader = segment.blockedDataReader;
+        // Hits during a refresh would otherwise each allocate a future only to lose the race for the key.
+        if (blockedDataReader.contains(key))
+            return;
+        final var future = new LoadingFuture<V>();
+        if (blockedDataReader.set(key, future) != future)
+            return;
+        try {
+            executor.execute(() -> {
+                future.loader = Thread.currentThread();
+                try {
+                    final var value = load(key);
+                    if (Objects.isNull(value)) {
+                        if (dataCache.remove(key, entry))
+                            segment.afterRemoval(entry);
+                        if (Objects.nonNull(negativeCache))
+                            negativeCache.add(key);
+                    } else {
+                        final var refreshed = newEntry(key, value);
+                        if (dataCache.replace(key, entry, refreshed))
+                            segment.afterWrite(refreshed, entry);
+                    }
+                    future.complete(value);
+                } catch (RuntimeException | Error e) {
+                    // The current value keeps being served until it expires.
+                    future.completeExceptionally(e);
+                } finally {
+                    blockedDataReader.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            blockedDataReader.remove(key, future);
+        }
+    }
+
+    private V load(K key) {
+        if (Objects.nonNull(writeBehind)) {
+            // The store may not have the key's latest change yet.
+            final var write = writeBehind.pendingWrite(key);
+            if (Objects.nonNull(write))
+                return write.getValue();
+        }
+        if (Objects.nonNull(failureBackoff))
+            failureBackoff.check(key);
+        acquireLoadPermit();
+        final var start = timesLoads ? System.nanoTime() : 0L;
+        try {
+            final var value = dataService.apply(key);
+            if (recordsStats)
+                statsCounter.recordLoadSuccess(System.nanoTime() - start);
+            if (Objects.nonNull(failureBackoff))
+                failureBackoff.recordSuccess(key);
+            return value;
+        } catch (RuntimeException | Error e) {
+            if (recordsStats)
+                statsCounter.recordLoadFailure(System.nanoTime() - start);
+            if (Objects.nonNull(failureBackoff))
+                failureBackoff.recordFailure(key, e);
+            throw e;
+        } finally {
+            if (Objects.nonNull(loadPermits))
+                loadPermits.release();
+            if (loadTime.isEnabled())
+                loadTime.record(key, toMicros(System.nanoTime() - start));
+            if (tracing)
+                CacheTracer.record(cacheId, ThreadDetail.DATASERVICE_WRITE, start, System.nanoTime() - start);
+        }
+    }
+
+    private Map<K, V> loadAll(Set<K> keys) {
+        if (Objects.isNull(writeBehind))
+            return loadAllFromDataService(keys);
+        final var values = new HashMap<K, V>();
+        final var unchanged = new LinkedHashSet<K>();
+        for (K key : keys) {
+            final var write = writeBehind.pendingWrite(key);
+            if (Objects.isNull(write))
+                unchanged.add(key);
+            else if (!write.isDelete())
+                values.put(key, write.getValue());
+        }
+        if (!unchanged.isEmpty()) {
+            final var loaded = loadAllFromDataService(unchanged);
+            if (Objects.nonNull(loaded))
+                values.putAll(loaded);
+        }
+        return values;
+    }
+
+    private Map<K, V> loadAllFromDataService(Set<K> keys) {
+        acquireLoadPermit();
+        final var start = timesLoads ? System.nanoTime() : 0L;
+        try {
+            final var values = batchLoader.apply(Collections.unmodifiableSet(keys));
+            if (recordsStats)
+                statsCounter.recordLoadSuccess(System.nanoTime() - start);
+            if (Objects.nonNull(failureBackoff))
+                keys.forEach(failureBackoff::recordSuccess);
+            return values;
+        } catch (RuntimeException | Error e) {
+            if (recordsStats)
+                statsCounter.recordLoadFailure(System.nanoTime() - start);
+            if (Objects.nonNull(failureBackoff))
+                keys.forEach(key -> failureBackoff.recordFailure(key, e));
+            throw e;
+        } finally {
+            if (Objects.nonNull(loadPermits))
+                loadPermits.release();
+            if (loadTime.isEnabled()) {
+                // A batch's time is shared evenly between its keys.
+                final var share = toMicros((System.nanoTime() - start) / keys.size());
+                for (K key : keys)
+                    loadTime.record(key, share);
+            }
+            if (tracing)
+                CacheTracer.record(cacheId, ThreadDetail.DATASERVICE_WRITE, start, System.nanoTime() - start);
+        }
+    }
+
+    private void acquireLoadPermit() {
+        if (Objects.nonNull(loadPermits) && !loadPermits.tryAcquire())
+            throw new RejectedExecutionException("Too many loads are already running");
+    }
+
+    private CacheEntry<K, V> promote(K key) {
+        if (offHeap) {
+            final var segment = segmentFor(key);
+            final CacheEntry<K, V> evicted;
+            final byte[] record;
+            segment.evictionLock.lock();
+            try {
+                evicted = segment.demotions.remove(key);
+                record = Objects.isNull(evicted) ? segment.offHeapStore.takeRecord(key) : null;
+            } finally {
+                segment.evictionLock.unlock();
+            }
+            final var value = Objects.isNull(evicted) ? null : evicted.getValue();
+            if (Objects.nonNull(value))
+                return restore(key, value, evicted.getWriteTime());
+            if (Objects.nonNull(record)) {
+                final var restored = segment.offHeapStore.deserialize(record);
+                return restore(key, restored.getValue(), restored.getWriteTime());
+            }
+        }
+        if (Objects.nonNull(warmSnapshot)) {
+            final var record = warmSnapshot.take(key);
+            if (Objects.nonNull(record)) {
+                final var age = Math.max(0, System.currentTimeMillis() - record.getWrittenAt());
+                return restore(key, record.getValue(), ticker.read() - TimeUnit.MILLISECONDS.toNanos(age));
+            }
+        }
+        return null;
+    }
+
+    private CacheEntry<K, V> restore(K key, V value, long writeTime) {
+        final var entry = newEntry(key, value);
+        if (timed)
+            entry.setWriteTime(writeTime);
+        return expires && isExpired(entry, ticker.read()) ? null : entry;
+    }
+
+    private void install(CacheEntry<K, V> entry, CompletableFuture<V> loading) {
+        final var segment = segmentFor(entry.getKey());
+        final var previous = new AtomicReference<CacheEntry<K, V>>();
+        // A load that was invalidated while in flight no longer owns the key and must not store its result.
+        final var current = dataCache.compute(entry.getKey(), (key, existing) -> {
+            if (segment.blockedDataReader.get(key) != loading)
+                return existing;
+            previous.set(existing);
+            return entry;
+        });
+        if (current == entry)
+            segment.afterWrite(entry, previous.get());
+        if (referenceEntries)
+            drainReferences(segment, REFERENCE_DRAIN_SLICE);
+    }
+
+    private void rememberAbsent(K key, CompletableFuture<V> loading) {
+        final var blockedDataReader = segmentFor(key).blockedDataReader;
+        dataCache.compute(key, (ignored, existing) -> {
+            if (blockedDataReader.get(key) == loading)
+                negativeCache.add(key);
+            return existing;
+        });
+    }
+
+    private CacheEntry<K, V> newEntry(K key, V value) {
+        final var weight = bounded ? weigher.weigh(key, value) : 1;
+        CacheBuilder.requireArgument(weight >= 0, "weigher returned a negative weight");
+        final CacheEntry<K, V> entry = referenceEntries
+                ? new ReferenceEntry<>(key, value, weight, weakKeys, valueStrength, valueQueue)
+                : new CacheEntry<>(key, value, weight);
+        if (timed) {
+            final var now = ticker.read();
+            entry.setWriteTime(now);
+            entry.setAccessTime(now);
+        }
+        return entry;
+    }
+
+    private boolean isExpired(CacheEntry<K, V> entry, long now) {
+        return now - expirationTime(entry) >= 0;
+    }
+
+    private long removalTime(CacheEntry<K, V> entry) {
+        return saturatedAdd(expirationTime(entry), staleGraceNanos);
+    }
+
+    private long expirationTime(CacheEntry<K, V> entry) {
+        var time = Long.MAX_VALUE;
+        if (expireAfterWriteNanos != CacheBuilder.UNSET)
+            time = saturatedAdd(entry.getWriteTime(), expireAfterWriteNanos);
+        if (expireAfterAccessNanos != CacheBuilder.UNSET)
+            time = Math.min(time, saturatedAdd(entry.getAccessTime(), expireAfterAccessNanos));
+        return time;
+    }
+
+    private void afterRead(CacheEntry<K, V> entry, long now) {
+        if (expireAfterAccessNanos != CacheBuilder.UNSET)
+            entry.setAccessTime(now);
+        if (!refreshes && !bounded)
+            return;
+        final var segment = segmentFor(entry.getKey());
+        if (refreshes && now - entry.getWriteTime() >= refreshAfterWriteNanos)
+            refresh(segment, entry.getKey(), entry);
+        if (bounded)
+            segment.recordRead(entry);
+    }
+
+    private Lock writeLockFor(K key) {
+        final var hash = weakKeys ? System.identityHashCode(key) : key.hashCode();
+        return writeLocks[FrequencySketch.spread(hash) & (WRITE_STRIPES - 1)];
+    }
+
+    private static Lock[] newWriteLocks() {
+        final var locks = new Lock[WRITE_STRIPES];
+        Arrays.setAll(locks, i -> new ReentrantLock());
+        return locks;
+    }
+
+    private Segment segmentFor(K key) {
+        return segmentFor(weakKeys ? System.identityHashCode(key) : key.hashCode());
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[FrequencySketch.spread(hash) & segmentMask];
+    }
+
+    /**
+     * Removes up to the given number of entries whose key or value the garbage collector cleared,
+     * and releases the segment's in-flight futures for collected keys. Callers drain a small slice
+     * on each write so the work stays spread out.
+     */
+    @SuppressWarnings("unchecked")
+    private void drainReferences(Segment segment, int maximum) {
+        if (weakKeys) {
+            ((WeakKeyMap<K, CacheEntry<K, V>>) dataCache).expungeStaleEntries(maximum, (entry, hash) -> {
+                segmentFor(hash).afterRemoval(entry);
+                statsCounter.recordEviction(entry.getWeight());
+            });
+            segment.blockedDataReader.expungeStaleKeys(maximum);
+        }
+        if (Objects.isNull(valueQueue))
+            return;
+        for (var i = 0; i < maximum; i++) {
+            final var reference = (ReferenceEntry.ValueReference<K, V>) valueQueue.poll();
+            if (Objects.isNull(reference))
+                return;
+            final var entry = reference.entry();
+            final var key = entry.getKey();
+            // An entry whose key was collected as well is removed through the key's reference.
+            if (Objects.nonNull(key) && dataCache.remove(key, entry)) {
+                segmentFor(key).afterRemoval(entry);
+                statsCounter.recordEviction(entry.getWeight());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Segment[] newSegments(CacheBuilder<K, V> builder) {
+        final var count = builder.getSegmentCount();
+        final var maximum = builder.getMaximum();
+        final var newSegments = (Segment[]) new CacheImpl<?, ?>.Segment[count];
+        for (var i = 0; i < count; i++) {
+            // The remainder of an uneven split goes to the first segments so the total stays exact.
+            final var share = bounded ? maximum / count + (i < maximum % count ? 1 : 0) : 0;
+            newSegments[i] = new Segment(share, bounded ? builder.newEvictionPolicy(share) : null,
+                    builder.newOffHeapStore(count));
+        }
+        return newSegments;
+    }
+
+    /**
+     * One stripe of the cache. It owns the in-flight loads, the eviction policy, the read buffer, the
+     * timer wheel and the weight of the keys that hash to it, so unrelated keys never contend on them.
+     * Its share of the maximum weight is a fair share rather than a limit: a segment may hold more
+     * while the cache as a whole is under its maximum, so one entry heavier than a share still fits.
+     */
+    private final class Segment {
+
+        private final BlockedDataReader<K, V> blockedDataReader;
+        private final long maximumWeight;
+        private final EvictionPolicy<K> evictionPolicy;
+        private final ReadBuffer<CacheEntry<K, V>> readBuffer;
+        private final Consumer<CacheEntry<K, V>> accessRecorder;
+        private final TimerWheel<K, V> timerWheel;
+        private final Predicate<CacheEntry<K, V>> expirer;
+        private final Lock evictionLock;
+        private final OffHeapStore<K, V> offHeapStore;
+        // Evicted entries waiting to be serialised into the off-heap store outside the lock.
+        private final Map<K, CacheEntry<K, V>> demotions;
+        private volatile boolean demotionsPending;
+        // Only written under the eviction lock; volatile so weightedSize() can read it without one.
+        private volatile long weightedSize;
+
+        Segment(long maximumWeight, EvictionPolicy<K> evictionPolicy, OffHeapStore<K, V> offHeapStore) {
+            this.blockedDataReader = new BlockedDataReader<>(weakKeys);
+            this.maximumWeight = maximumWeight;
+            this.evictionPolicy = evictionPolicy;
+            this.readBuffer = bounded ? new ReadBuffer<>() : null;
+            this.accessRecorder = entry -> evictionPolicy.recordAccess(entry.getKey());
+            this.timerWheel = expires ? new TimerWheel<>(ticker.read()) : null;
+            this.expirer = this::expire;
+            this.evictionLock = new ReentrantLock();
+            this.offHeapStore = offHeapStore;
+            this.demotions = Objects.isNull(offHeapStore) ? null : new HashMap<>();
+        }
+
+        void recordRead(CacheEntry<K, V> entry) {
+            if (readBuffer.offer(entry) == ReadBuffer.FULL && evictionLock.tryLock()) {
+                try {
+                    maintenance();
+                } finally {
+                    evictionLock.unlock();
+                }
+                demote();
+            }
+        }
+
+        void cleanUp() {
+            evictionLock.lock();
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+            demote();
+        }
+
+        void afterWrite(CacheEntry<K, V> entry, CacheEntry<K, V> previous) {
+            if (!bounded && !expires)
+                return;
+            evictionLock.lock();
+            try {
+                if (Objects.nonNull(previous)) {
+                    weightedSize -= previous.getWeight();
+                    if (expires)
+                        timerWheel.deschedule(previous);
+                }
+                weightedSize += entry.getWeight();
+                // Only track the entry if it was not already replaced or removed.
+                if (dataCache.get(entry.getKey()) == entry) {
+                    if (bounded)
+                        evictionPolicy.recordInsert(entry.getKey());
+                    if (expires) {
+                        entry.setTimerTime(removalTime(entry));
+                        timerWheel.schedule(entry);
+                    }
+                }
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+            demote();
+        }
+
+        /**
+         * Serialises the entries evicted meanwhile without holding the lock, then stores those that
+         * no write or read has claimed since.
+         */
+        void demote() {
+            if (!demotionsPending)
+                return;
+            final List<CacheEntry<K, V>> evicted;
+            evictionLock.lock();
+            try {
+                demotionsPending = false;
+                evicted = new ArrayList<>(demotions.values());
+            } finally {
+                evictionLock.unlock();
+            }
+            final var records = new byte[evicted.size()][];
+            for (var i = 0; i < records.length; i++) {
+                final var value = evicted.get(i).getValue();
+                if (Objects.nonNull(value))
+                    records[i] = offHeapStore.serialize(value, evicted.get(i).getWriteTime());
+            }
+            evictionLock.lock();
+            try {
+                for (var i = 0; i < records.length; i++) {
+                    final var entry = evicted.get(i);
+                    if (demotions.remove(entry.getKey(), entry) && Objects.nonNull(records[i]))
+                        offHeapStore.putRecord(entry.getKey(), records[i]);
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+
+        void afterRemoval(CacheEntry<K, V> entry) {
+            if (!bounded && !expires)
+                return;
+            evictionLock.lock();
+            try {
+                weightedSize -= entry.getWeight();
+                if (expires)
+                    timerWheel.deschedule(entry);
+                if (bounded && !dataCache.containsKey(entry.getKey()))
+                    evictionPolicy.recordRemoval(entry.getKey());
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+
+        private void maintenance() {
+            if (bounded)
+                readBuffer.drainTo(accessRecorder);
+            if (expires)
+                timerWheel.advance(ticker.read(), expirer);
+            if (bounded)
+                evict();
+        }
+
+        private boolean expire(CacheEntry<K, V> entry) {
+            final var removalTime = removalTime(entry);
+            if (ticker.read() - removalTime < 0) {
+                entry.setTimerTime(removalTime);
+                return false;
+            }
+            if (dataCache.remove(entry.getKey(), entry)) {
+                weightedSize -= entry.getWeight();
+                statsCounter.recordEviction(entry.getWeight());
+                if (bounded && !dataCache.containsKey(entry.getKey()))
+                    evictionPolicy.recordRemoval(entry.getKey());
+            }
+            return true;
+        }
+
+        private void evict() {
+            while (weightedSize > maximumWeight && weightedSize() > CacheImpl.this.maximumWeight) {
+                if (!evictOne())
+                    return;
+            }
+            if (weightedSize() <= CacheImpl.this.maximumWeight)
+                return;
+            // The cache is over its maximum because other segments hold more than their share.
+            for (var other : segments) {
+                if (other == this || other.weightedSize <= other.maximumWeight || !other.evictionLock.tryLock())
+                    continue;
+                try {
+                    while (other.weightedSize > other.maximumWeight && weightedSize() > CacheImpl.this.maximumWeight) {
+                        if (!other.evictOne())
+                            break;
+                    }
+                } finally {
+                    other.evictionLock.unlock();
+                }
+            }
+        }
+
+        private boolean evictOne() {
+            while (true) {
+                final var victim = evictionPolicy.evict();
+                if (Objects.isNull(victim))
+                    return false;
+                final var entry = dataCache.get(victim);
+                if (Objects.nonNull(entry) && dataCache.remove(victim, entry)) {
+                    weightedSize -= entry.getWeight();
+                    statsCounter.recordEviction(entry.getWeight());
+                    if (expires)
+                        timerWheel.deschedule(entry);
+                    if (offHeap && Objects.nonNull(entry.getValue())) {
+                        demotions.put(victim, entry);
+                        demotionsPending = true;
+                    }
+                    return true;
+                }
+            }
+        }
+    }
+
+    private static void scheduleCleanUp(ScheduledExecutorService scheduler, CacheImpl<?, ?> cache) {
+        // The task only holds the cache weakly so an abandoned cache can still be collected.
+        final var reference = new WeakReference<CacheImpl<?, ?>>(cache);
+        final var task = new AtomicReference<Future<?>>();
+        task.set(scheduler.scheduleWithFixedDelay(() -> {
+            final var current = reference.get();
+            if (Objects.nonNull(current))
+                current.cleanUp();
+            else if (Objects.nonNull(task.get()))
+                task.get().cancel(false);
+        }, 1, 1, TimeUnit.SECONDS));
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /** A load's future, which knows the thread running the load so a recursive wait on it can fail fast. */
+    private static final class LoadingFuture<V> extends CompletableFuture<V> {
+
+        volatile Thread loader;
+    }
+
+    static long saturatedAdd(long time, long duration) {
+        final var result = time + duration;
+        return ((time ^ result) & (duration ^ result)) < 0 ? Long.MAX_VALUE : result;
+    }
+
+    static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw e;
+        }
+    }
 }
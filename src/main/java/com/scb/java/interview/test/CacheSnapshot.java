@@ -0,0 +1,291 @@
+package com.scb.java.interview.test;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * A read-once, memory-mapped snapshot of a cache's entries used to warm a cache after a restart.
+ * The file starts with an open-addressed table of record offsets, so opening it only maps the
+ * file and an entry is deserialised the first time its key is asked for. The mapping is read-only,
+ * so lookups take no lock; taken slots are claimed in an atomic bit set on the heap, one bit per
+ * slot. Keys are hashed and matched by their serialized bytes, so the key serializer must turn
+ * equal keys into equal bytes. The mapping is dropped once every entry is taken, or once enough
+ * lookups in a row miss that the keys left are evidently no longer asked for.
+ *
+ * <p>Times are stored as wall-clock milliseconds because the ticker of one process means nothing
+ * to the next. Entries that have expired by the time they are asked for are dropped.
+ */
+public class CacheSnapshot<K, V> implements Closeable {
+
+    static final int MAGIC = 0x43534E50;
+    static final int VERSION = 2;
+    static final long NEVER = Long.MAX_VALUE;
+
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+    private static final int RECORD_HEADER_SIZE = 3 * Integer.BYTES + 2 * Long.BYTES;
+    private static final long EMPTY = 0;
+    private static final int MAXIMUM_MISSES = 1 << 16;
+
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final LongSupplier wallClock;
+    private final int maximumMisses;
+    private volatile ByteBuffer buffer;
+    private final AtomicLongArray taken;
+    private final int slotMask;
+    private final AtomicInteger remaining;
+    // Counted without synchronisation; losing the odd increment only delays the drop.
+    private int misses;
+
+    private CacheSnapshot(ByteBuffer buffer, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                          LongSupplier wallClock, int maximumMisses) throws IOException {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION)
+            throw new IOException("Not a cache snapshot, or one of an unsupported version");
+        this.buffer = buffer;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.wallClock = wallClock;
+        this.maximumMisses = maximumMisses;
+        this.slotMask = buffer.getInt(2 * Integer.BYTES) - 1;
+        this.remaining = new AtomicInteger(buffer.getInt(3 * Integer.BYTES));
+        this.taken = new AtomicLongArray((slotMask >>> 6) + 1);
+    }
+
+    public static <K, V> CacheSnapshot<K, V> open(Path file, Serializer<K> keySerializer,
+                                                  Serializer<V> valueSerializer) throws IOException {
+        return open(file, keySerializer, valueSerializer, System::currentTimeMillis);
+    }
+
+    static <K, V> CacheSnapshot<K, V> open(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                                           LongSupplier wallClock) throws IOException {
+        return open(file, keySerializer, valueSerializer, wallClock, MAXIMUM_MISSES);
+    }
+
+    static <K, V> CacheSnapshot<K, V> open(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                                           LongSupplier wallClock, int maximumMisses) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE || channel.size() < HEADER_SIZE)
+                throw new IOException("Snapshot size is out of range: " + channel.size());
+            final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CacheSnapshot<>(buffer, keySerializer, valueSerializer, wallClock, maximumMisses);
+        }
+    }
+
+    /**
+     * Writes the entries to a temporary file next to the target and then moves it into place, so
+     * a reader never sees a half-written snapshot.
+     */
+    public static <K, V> void write(Path file, Collection<Entry<K, V>> entries, Serializer<K> keySerializer,
+                                    Serializer<V> valueSerializer) throws IOException {
+        final var slotCount = FrequencySketch.ceilingPowerOfTwo(Math.max(2, 2 * entries.size()));
+        final var slots = new long[slotCount];
+        final var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            writeTable(temporary, entries, slots, keySerializer, valueSerializer);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static <K, V> void writeTable(Path temporary, Collection<Entry<K, V>> entries, long[] slots,
+                                          Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        final var slotCount = slots.length;
+        try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var position = (long) HEADER_SIZE + (long) slotCount * Long.BYTES;
+            var count = 0;
+            for (var entry : entries) {
+                CacheBuilder.requireArgument(position <= Integer.MAX_VALUE, "snapshot exceeds 2 GiB");
+                final var key = keySerializer.serialize(entry.getKey());
+                final var value = valueSerializer.serialize(entry.getValue());
+                final var hash = Arrays.hashCode(key);
+                final var record = ByteBuffer.allocate(RECORD_HEADER_SIZE + key.length + value.length)
+                        .putInt(hash)
+                        .putInt(key.length)
+                        .putInt(value.length)
+                        .putLong(entry.getWrittenAt())
+                        .putLong(entry.getExpiresAt())
+                        .put(key)
+                        .put(value)
+                        .flip();
+                var slot = FrequencySketch.spread(hash) & (slotCount - 1);
+                while (slots[slot] != EMPTY)
+                    slot = (slot + 1) & (slotCount - 1);
+                slots[slot] = position;
+                position += writeFully(channel, record, position);
+                count++;
+            }
+            CacheBuilder.requireArgument(position <= Integer.MAX_VALUE, "snapshot exceeds 2 GiB");
+            final var table = ByteBuffer.allocate(HEADER_SIZE + slotCount * Long.BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(slotCount)
+                    .putInt(count);
+            for (var slot : slots)
+                table.putLong(slot);
+            writeFully(channel, table.flip(), 0);
+            channel.force(true);
+        }
+    }
+
+    /** Removes the entry for the key and returns it, or null when it is absent or has expired. */
+    public Entry<K, V> take(K key) {
+        final var mapping = buffer;
+        if (Objects.isNull(mapping))
+            return null;
+        final var slot = slotOf(mapping, key);
+        if (slot < 0) {
+            if (++misses >= maximumMisses)
+                close();
+            return null;
+        }
+        misses = 0;
+        if (!markTaken(slot))
+            return null;
+        final var record = mapping.duplicate().position((int) offsetOf(mapping, slot) + Integer.BYTES);
+        final var keyLength = record.getInt();
+        final var valueBytes = new byte[record.getInt()];
+        final var writtenAt = record.getLong();
+        final var expiresAt = record.getLong();
+        if (wallClock.getAsLong() >= expiresAt)
+            return null;
+        record.position(record.position() + keyLength).get(valueBytes);
+        return new Entry<>(key, valueSerializer.deserialize(valueBytes), writtenAt, expiresAt);
+    }
+
+    public boolean remove(K key) {
+        final var mapping = buffer;
+        if (Objects.isNull(mapping))
+            return false;
+        final var slot = slotOf(mapping, key);
+        return slot >= 0 && markTaken(slot);
+    }
+
+    /** Removes the entries whose keys match, deserialising every key still in the snapshot. */
+    public void removeIf(Predicate<? super K> predicate) {
+        final var mapping = buffer;
+        if (Objects.isNull(mapping))
+            return;
+        for (var slot = 0; slot <= slotMask && Objects.nonNull(buffer); slot++) {
+            final var offset = offsetOf(mapping, slot);
+            if (offset != EMPTY && !isTaken(slot) && predicate.test(keyAt(mapping, offset)))
+                markTaken(slot);
+        }
+    }
+
+    public int remaining() {
+        return remaining.get();
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+        remaining.set(0);
+    }
+
+    private int slotOf(ByteBuffer mapping, K key) {
+        // Serialized bytes hash the same in every process, unlike an identity-based hashCode.
+        final var keyBytes = keySerializer.serialize(key);
+        final var hash = Arrays.hashCode(keyBytes);
+        var slot = FrequencySketch.spread(hash) & slotMask;
+        for (var probes = 0; probes <= slotMask; probes++, slot = (slot + 1) & slotMask) {
+            final var offset = offsetOf(mapping, slot);
+            if (offset == EMPTY)
+                return -1;
+            if (!isTaken(slot) && mapping.getInt((int) offset) == hash
+                    && Arrays.equals(keyBytes, keyBytesAt(mapping, offset)))
+                return slot;
+        }
+        return -1;
+    }
+
+    private long offsetOf(ByteBuffer mapping, int slot) {
+        return mapping.getLong(HEADER_SIZE + slot * Long.BYTES);
+    }
+
+    private K keyAt(ByteBuffer mapping, long offset) {
+        return keySerializer.deserialize(keyBytesAt(mapping, offset));
+    }
+
+    private byte[] keyBytesAt(ByteBuffer mapping, long offset) {
+        final var record = mapping.duplicate().position((int) offset + Integer.BYTES);
+        final var keyBytes = new byte[record.getInt()];
+        record.position(RECORD_HEADER_SIZE + (int) offset).get(keyBytes);
+        return keyBytes;
+    }
+
+    private boolean isTaken(int slot) {
+        return (taken.get(slot >>> 6) & (1L << slot)) != 0;
+    }
+
+    /** Claims the slot and returns whether this caller was the one to take it. */
+    private boolean markTaken(int slot) {
+        final var index = slot >>> 6;
+        final var bit = 1L << slot;
+        long word;
+        do {
+            word = taken.get(index);
+            if ((word & bit) != 0)
+                return false;
+        } while (!taken.compareAndSet(index, word, word | bit));
+        // The mapping goes as soon as nothing is left to read from it.
+        if (remaining.updateAndGet(count -> Math.max(0, count - 1)) == 0)
+            buffer = null;
+        return true;
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer source, long position) throws IOException {
+        var written = 0L;
+        while (source.hasRemaining())
+            written += channel.write(source, position + written);
+        return written;
+    }
+
+    public static final class Entry<K, V> {
+
+        private final K key;
+        private final V value;
+        private final long writtenAt;
+        private final long expiresAt;
+
+        public Entry(K key, V value, long writtenAt, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.writtenAt = writtenAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        /** The wall-clock time in milliseconds at which the value was loaded. */
+        public long getWrittenAt() {
+            return writtenAt;
+        }
+
+        /** The wall-clock time in milliseconds at which the entry expires, or {@link #NEVER}. */
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.scb.java.interview.test;
+
+import java.util.StringJoiner;
+
+public class CacheStats {
+
+    private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0, 0, LatencyHistogram.Snapshot.EMPTY);
+
+    private final long hitCount;
+    private final long missCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTime;
+    private final long evictionCount;
+    private final long evictionWeight;
+    private final LatencyHistogram.Snapshot loadLatency;
+
+    public CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+                      long totalLoadTime, long evictionCount, long evictionWeight,
+                      LatencyHistogram.Snapshot loadLatency) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCount = evictionCount;
+        this.evictionWeight = evictionWeight;
+        this.loadLatency = loadLatency;
+    }
+
+    public static CacheStats empty() {
+        return EMPTY;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    public double getHitRate() {
+        final var requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    public double getAverageLoadPenalty() {
+        final var loadCount = loadSuccessCount + loadFailureCount;
+        return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getEvictionWeight() {
+        return evictionWeight;
+    }
+
+    public LatencyHistogram.Snapshot getLoadLatency() {
+        return loadLatency;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CacheStats.class.getSimpleName() + "[", "]")
+                .add("hitCount=" + hitCount)
+                .add("missCount=" + missCount)
+                .add("loadSuccessCount=" + loadSuccessCount)
+                .add("loadFailureCount=" + loadFailureCount)
+                .add("totalLoadTime=" + totalLoadTime)
+                .add("evictionCount=" + evictionCount)
+                .add("evictionWeight=" + evictionWeight)
+                .add("loadLatencyP99=" + loadLatency.getValueAtPercentile(99))
+                .toString();
+    }
+}
@@ -0,0 +1,280 @@
+package com.scb.java.interview.test;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Records the events of caches built with {@link CacheBuilder#traceEvents()}. Each thread writes
+ * into a ring buffer of its own, allocated once, so recording takes no lock and allocates nothing;
+ * when a thread writes faster than the buffers are drained its oldest events are overwritten and
+ * counted as dropped. The buffers of threads that have ended are reused by new threads once
+ * drained, or once enough threads have claimed one that nothing may be draining them, in which
+ * case their remaining events are counted as dropped. Events are also committed as
+ * {@link CacheAccessEvent}s while a flight recording has them enabled.
+ */
+public final class CacheTracer {
+
+    static final int BUFFER_EVENTS = FrequencySketch.ceilingPowerOfTwo(
+            Math.max(16, Integer.getInteger("com.scb.cache.trace.bufferEvents", 1024)));
+    private static final int MAGIC = 0x43545243;
+    private static final int SLOTS_PER_EVENT = 3;
+    private static final int RECLAIM_THRESHOLD = 64;
+    private static final ThreadDetail.ReadFrom[] READ_FROM = ThreadDetail.ReadFrom.values();
+    private static final ThreadDetail.LockType[] LOCK_TYPES = ThreadDetail.LockType.values();
+
+    private static final AtomicInteger cacheIds = new AtomicInteger();
+    private static final AtomicLong droppedEvents = new AtomicLong();
+    private static final Queue<Ring> activeRings = new ConcurrentLinkedQueue<>();
+    private static final Queue<Ring> freeRings = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger activeRingCount = new AtomicInteger();
+    private static volatile int reclaimAt = RECLAIM_THRESHOLD;
+    private static final ThreadLocal<Ring> rings = ThreadLocal.withInitial(CacheTracer::claimRing);
+    private static final ReentrantLock drainLock = new ReentrantLock();
+
+    private CacheTracer() {
+    }
+
+    static int nextCacheId() {
+        return cacheIds.incrementAndGet();
+    }
+
+    public static void record(int cacheId, ThreadDetail detail, long startNanos, long durationNanos) {
+        final var ring = rings.get();
+        final var slot = (int) (ring.written & (BUFFER_EVENTS - 1)) * SLOTS_PER_EVENT;
+        ring.slots[slot] = startNanos;
+        ring.slots[slot + 1] = durationNanos;
+        ring.slots[slot + 2] = (long) cacheId << 16
+                | detail.getReadFrom().ordinal() << 8
+                | detail.getLockType().ordinal();
+        ring.published.lazySet(++ring.written);
+
+        if (CacheAccessEvent.TYPE.isEnabled()) {
+            final var event = new CacheAccessEvent();
+            event.cacheId = cacheId;
+            event.readFrom = detail.getReadFrom().name();
+            event.lockType = detail.getLockType().name();
+            event.durationNanos = durationNanos;
+            event.commit();
+        }
+    }
+
+    /** Passes every event recorded since the last drain to the consumer, thread by thread. */
+    public static void drain(Consumer<? super TraceEvent> consumer) {
+        drainLock.lock();
+        try {
+            for (var ring : activeRings) {
+                final var ended = hasEnded(ring);
+                drain(ring, consumer);
+                if (ended)
+                    free(ring);
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    public static List<TraceEvent> drain() {
+        final var events = new ArrayList<TraceEvent>();
+        drain(events::add);
+        return events;
+    }
+
+    static int activeRings() {
+        return activeRingCount.get();
+    }
+
+    /** Returns the number of events overwritten before they could be drained. */
+    public static long droppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /** Drains the buffers into the stream in the binary form {@link #read(DataInputStream)} parses. */
+    public static void writeTo(DataOutputStream out) throws IOException {
+        try {
+            drain(event -> {
+                try {
+                    out.writeInt(MAGIC);
+                    out.writeUTF(event.getThreadName());
+                    out.writeInt(event.getCacheId());
+                    out.writeLong(event.getStartNanos());
+                    out.writeLong(event.getDurationNanos());
+                    out.writeByte(event.getReadFrom().ordinal());
+                    out.writeByte(event.getLockType().ordinal());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    public static List<TraceEvent> read(DataInputStream in) throws IOException {
+        final var events = new ArrayList<TraceEvent>();
+        while (true) {
+            final int magic;
+            try {
+                magic = in.readInt();
+            } catch (EOFException e) {
+                return events;
+            }
+            if (magic != MAGIC)
+                throw new IOException("Not a cache trace");
+            events.add(new TraceEvent(in.readUTF(), in.readInt(), in.readLong(), in.readLong(),
+                    READ_FROM[in.readByte()], LOCK_TYPES[in.readByte()]));
+        }
+    }
+
+    /**
+     * Appends the buffers to the file every interval on a background thread until the returned
+     * handle is closed, which also writes out whatever remains.
+     */
+    public static Closeable streamTo(Path file, Duration interval) throws IOException {
+        final var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)));
+        final var intervalNanos = interval.toNanos();
+        CacheBuilder.requireArgument(intervalNanos > 0, "interval must be positive");
+        final var streamer = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    TimeUnit.NANOSECONDS.sleep(intervalNanos);
+                    writeTo(out);
+                }
+            } catch (InterruptedException e) {
+                // Closed; the final write happens in close.
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, "cache-trace-streamer");
+        streamer.setDaemon(true);
+        streamer.start();
+        return () -> {
+            streamer.interrupt();
+            try {
+                streamer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try (out) {
+                writeTo(out);
+            }
+        };
+    }
+
+    private static void drain(Ring ring, Consumer<? super TraceEvent> consumer) {
+        final var published = ring.published.get();
+        var next = ring.drained;
+        if (published - next > BUFFER_EVENTS) {
+            droppedEvents.addAndGet(published - next - BUFFER_EVENTS);
+            next = published - BUFFER_EVENTS;
+        }
+        final var threadName = ring.threadName;
+        for (; next < published; next++) {
+            final var slot = (int) (next & (BUFFER_EVENTS - 1)) * SLOTS_PER_EVENT;
+            final var start = ring.slots[slot];
+            final var duration = ring.slots[slot + 1];
+            final var packed = ring.slots[slot + 2];
+            // The writer may have lapped this slot while it was read; such an event is discarded.
+            VarHandle.loadLoadFence();
+            if (ring.published.get() - next > BUFFER_EVENTS) {
+                droppedEvents.incrementAndGet();
+                continue;
+            }
+            consumer.accept(new TraceEvent(threadName, (int) (packed >>> 16), start, duration,
+                    READ_FROM[(int) (packed >>> 8) & 0xFF], LOCK_TYPES[(int) packed & 0xFF]));
+        }
+        ring.drained = published;
+    }
+
+    private static Ring claimRing() {
+        if (activeRingCount.get() >= reclaimAt)
+            reclaimEndedRings();
+        var ring = freeRings.poll();
+        if (Objects.isNull(ring))
+            ring = new Ring();
+        final var thread = Thread.currentThread();
+        ring.owner = new WeakReference<>(thread);
+        ring.threadName = threadKey(thread);
+        activeRings.add(ring);
+        activeRingCount.incrementAndGet();
+        return ring;
+    }
+
+    /**
+     * Returns a name for the given thread: its own, or its id for unnamed threads such as virtual
+     * threads, which would otherwise all share the empty name.
+     */
+    static String threadKey(Thread thread) {
+        final var name = thread.getName();
+        return name.isEmpty() ? "#" + thread.getId() : name;
+    }
+
+    /**
+     * Frees the rings of threads that have ended without waiting for a drain, which may never come
+     * when only flight recordings are taken. The threshold then grows with the live rings, so
+     * threads that stay alive do not make every new thread scan them.
+     */
+    private static void reclaimEndedRings() {
+        if (!drainLock.tryLock())
+            return;
+        try {
+            for (var ring : activeRings) {
+                if (hasEnded(ring)) {
+                    final var published = ring.published.get();
+                    droppedEvents.addAndGet(Math.min(published - ring.drained, BUFFER_EVENTS));
+                    ring.drained = published;
+                    free(ring);
+                }
+            }
+            reclaimAt = Math.max(RECLAIM_THRESHOLD, 2 * activeRingCount.get());
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private static boolean hasEnded(Ring ring) {
+        final var owner = ring.owner.get();
+        return Objects.isNull(owner) || !owner.isAlive();
+    }
+
+    // Called under the drain lock.
+    private static void free(Ring ring) {
+        activeRings.remove(ring);
+        activeRingCount.decrementAndGet();
+        freeRings.add(ring);
+    }
+
+    private static final class Ring {
+
+        final long[] slots = new long[BUFFER_EVENTS * SLOTS_PER_EVENT];
+        final AtomicLong published = new AtomicLong();
+        // Only the owning thread writes this.
+        long written;
+        // Only a drain, under the drain lock, touches this.
+        long drained;
+        volatile WeakReference<Thread> owner;
+        volatile String threadName;
+    }
+}
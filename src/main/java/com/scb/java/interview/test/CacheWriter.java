@@ -0,0 +1,32 @@
+package com.scb.java.interview.test;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes the cache's changes to the backing store, either as each change is made or, in
+ * write-behind mode, in batches from a background thread. An exception thrown by a write-through
+ * call fails the change. In write-behind mode a failed batch is retried one key at a time, and a
+ * key that keeps failing is given up on and passed to {@link #writeFailed}.
+ */
+public interface CacheWriter<K, V> {
+
+    void write(K key, V value);
+
+    void delete(K key);
+
+    default void writeAll(Map<K, V> values) {
+        values.forEach(this::write);
+    }
+
+    default void deleteAll(Collection<K> keys) {
+        keys.forEach(this::delete);
+    }
+
+    /**
+     * Receives a write-behind change that failed every attempt and was dropped; a null value is a
+     * delete. Does nothing by default.
+     */
+    default void writeFailed(K key, V value, RuntimeException cause) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.scb.java.interview.test;
+
+/**
+ * A data source that publishes the keys it changes, so caches in front of it can drop or reload
+ * them instead of waiting for them to expire.
+ */
+public interface ChangeFeed<K> {
+
+    void addListener(InvalidationListener<? super K> listener);
+
+    void removeListener(InvalidationListener<? super K> listener);
+
+    /** What a cache does with a cached key when the feed reports a change to it. */
+    enum Action {
+        INVALIDATE,
+        REFRESH
+    }
+}
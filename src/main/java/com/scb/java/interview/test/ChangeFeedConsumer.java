@@ -0,0 +1,115 @@
+package com.scb.java.interview.test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applies a change feed to a cache on a background thread. Changes are queued in a bounded buffer
+ * and applied in de-duplicated batches; when the buffer is full the publishing thread waits, which
+ * slows a source down to the rate the cache can keep up with. The thread holds the cache only
+ * weakly and stops, detaching from the feed, once the cache has been collected.
+ */
+public class ChangeFeedConsumer<K> implements InvalidationListener<K> {
+
+    static final int QUEUE_CAPACITY = 8_192;
+    static final int MAXIMUM_BATCH = 512;
+    private static final long POLL_MILLIS = 100;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final ChangeFeed<? extends K> feed;
+    private final ChangeFeed.Action action;
+    private final WeakReference<CacheImpl<K, ?>> cache;
+    private final BlockingQueue<K> changes;
+    private volatile boolean stopped;
+
+    ChangeFeedConsumer(ChangeFeed<? extends K> feed, ChangeFeed.Action action, CacheImpl<K, ?> cache, int capacity) {
+        this.feed = Objects.requireNonNull(feed);
+        this.action = Objects.requireNonNull(action);
+        this.cache = new WeakReference<>(cache);
+        this.changes = new ArrayBlockingQueue<>(capacity);
+    }
+
+    static <K> ChangeFeedConsumer<K> start(ChangeFeed<? extends K> feed, ChangeFeed.Action action, CacheImpl<K, ?> cache) {
+        return start(feed, action, cache, QUEUE_CAPACITY);
+    }
+
+    static <K> ChangeFeedConsumer<K> start(ChangeFeed<? extends K> feed, ChangeFeed.Action action, CacheImpl<K, ?> cache,
+                                           int capacity) {
+        final var consumer = new ChangeFeedConsumer<K>(feed, action, cache, capacity);
+        final var worker = new Thread(consumer::drain, "cache-change-feed-" + THREAD_COUNT.incrementAndGet());
+        worker.setDaemon(true);
+        feed.addListener(consumer);
+        worker.start();
+        return consumer;
+    }
+
+    @Override
+    public void onChange(K key) {
+        var interrupted = false;
+        try {
+            while (!stopped) {
+                try {
+                    if (changes.offer(key, POLL_MILLIS, TimeUnit.MILLISECONDS))
+                        return;
+                } catch (InterruptedException e) {
+                    // Dropping the change would leave a stale entry behind, so the wait carries on.
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    public int pending() {
+        return changes.size();
+    }
+
+    private void drain() {
+        final var batch = new ArrayList<K>(MAXIMUM_BATCH);
+        try {
+            while (Objects.nonNull(cache.get())) {
+                final var first = changes.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (Objects.isNull(first))
+                    continue;
+                batch.add(first);
+                changes.drainTo(batch, MAXIMUM_BATCH - 1);
+                apply(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped = true;
+            feed.removeListener(this);
+        }
+    }
+
+    private void apply(ArrayList<K> batch) {
+        final var target = cache.get();
+        if (Objects.isNull(target))
+            return;
+        final var keys = new LinkedHashSet<>(batch);
+        final var reload = new ArrayList<K>();
+        if (action == ChangeFeed.Action.REFRESH) {
+            for (K key : keys) {
+                if (Objects.nonNull(target.getIfPresent(key)))
+                    reload.add(key);
+            }
+        }
+        target.invalidateAll(keys);
+        try {
+            if (!reload.isEmpty())
+                target.getAll(reload);
+        } catch (RuntimeException e) {
+            // The entries stay invalidated, so the next read loads them instead.
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.scb.java.interview.test;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The cache key of a memoized call of more than one argument. A thread looks its calls up with a
+ * probe key it refills for every call, so a hit allocates nothing; only a miss copies the
+ * arguments into a key of its own for the cache to keep.
+ */
+final class CompositeKey {
+
+    private Object first;
+    private Object second;
+    private Object third;
+    private Object[] arguments;
+    private int hash;
+
+    private CompositeKey() {
+    }
+
+    static CompositeKey probe() {
+        return new CompositeKey();
+    }
+
+    CompositeKey set(Object first, Object second) {
+        return set(first, second, null, null, 31 * Objects.hashCode(first) + Objects.hashCode(second));
+    }
+
+    CompositeKey set(Object first, Object second, Object third) {
+        return set(first, second, third, null,
+                31 * (31 * Objects.hashCode(first) + Objects.hashCode(second)) + Objects.hashCode(third));
+    }
+
+    CompositeKey set(Object[] arguments) {
+        return set(null, null, null, arguments, Arrays.hashCode(arguments));
+    }
+
+    CompositeKey copy() {
+        final var copy = new CompositeKey();
+        return copy.set(first, second, third, Objects.isNull(arguments) ? null : arguments.clone(), hash);
+    }
+
+    Object first() {
+        return first;
+    }
+
+    Object second() {
+        return second;
+    }
+
+    Object third() {
+        return third;
+    }
+
+    Object[] arguments() {
+        return arguments;
+    }
+
+    /** Forgets the arguments so a probe does not keep them reachable between calls. */
+    void clear() {
+        set(null, null, null, null, 0);
+    }
+
+    private CompositeKey set(Object first, Object second, Object third, Object[] arguments, int hash) {
+        this.first = first;
+        this.second = second;
+        this.third = third;
+        this.arguments = arguments;
+        this.hash = hash;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof CompositeKey))
+            return false;
+        final var that = (CompositeKey) o;
+        return hash == that.hash
+                && Objects.equals(first, that.first)
+                && Objects.equals(second, that.second)
+                && Objects.equals(third, that.third)
+                && Arrays.equals(arguments, that.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.isNull(arguments) ? "(" + first + ", " + second + ", " + third + ")" : Arrays.toString(arguments);
+    }
+}
@@ -1,5 +1,9 @@
 package com.scb.java.interview.test;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 
@@ -13,6 +17,18 @@ public class DataService<K, V> implements Function<K, V> {
 
     @Override
     public V apply(K k) {
+        ThreadDetailService.induceSleep(1000, ThreadDetailService.NON_PROD);
         return dataService.get(k);
     }
+
+    public Map<K, V> applyAll(Set<K> keys) {
+        ThreadDetailService.induceSleep(1000, ThreadDetailService.NON_PROD);
+        final var values = new HashMap<K, V>();
+        for (K key : keys) {
+            final var value = dataService.get(key);
+            if (Objects.nonNull(value))
+                values.put(key, value);
+        }
+        return values;
+    }
 }
@@ -0,0 +1,20 @@
+package com.scb.java.interview.test;
+
+/**
+ * Decides which key leaves a bounded cache next. Implementations are only ever called
+ * while the owning cache holds its eviction lock, so they need not be thread-safe.
+ */
+public interface EvictionPolicy<K> {
+
+    void recordInsert(K key);
+
+    void recordAccess(K key);
+
+    void recordRemoval(K key);
+
+    /**
+     * Removes the next victim from the policy's bookkeeping and returns it, or null when
+     * nothing is tracked.
+     */
+    K evict();
+}
@@ -0,0 +1,79 @@
+package com.scb.java.interview.test;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers keys whose last load failed so they are not retried at once. Each consecutive failure
+ * doubles the delay before the next attempt, up to a maximum; until then the last failure is
+ * rethrown without calling the loader.
+ */
+public class FailureBackoff<K> {
+
+    static final int MAXIMUM_TRACKED_KEYS = 10_000;
+
+    private final long initialDelayNanos;
+    private final long maximumDelayNanos;
+    private final Ticker ticker;
+    private final ConcurrentMap<K, Failure> failures = new ConcurrentHashMap<>();
+
+    public FailureBackoff(long initialDelayNanos, long maximumDelayNanos, Ticker ticker) {
+        this.initialDelayNanos = initialDelayNanos;
+        this.maximumDelayNanos = maximumDelayNanos;
+        this.ticker = ticker;
+    }
+
+    /** Rethrows the key's last failure if it is still backing off. */
+    public void check(K key) {
+        final var failure = failures.get(key);
+        if (Objects.nonNull(failure) && ticker.read() - failure.retryAt < 0) {
+            if (failure.cause instanceof RuntimeException)
+                throw (RuntimeException) failure.cause;
+            throw (Error) failure.cause;
+        }
+    }
+
+    public void recordFailure(K key, Throwable cause) {
+        final var now = ticker.read();
+        if (failures.size() >= MAXIMUM_TRACKED_KEYS && !failures.containsKey(key)) {
+            // Forgetting an arbitrary key only lets it be retried early, and costs no scan of the others.
+            final var iterator = failures.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        failures.compute(key, (ignored, previous) -> {
+            final var attempts = Objects.isNull(previous) ? 1 : previous.attempts + 1;
+            return new Failure(attempts, CacheImpl.saturatedAdd(now, delay(attempts)), cause);
+        });
+    }
+
+    public void recordSuccess(K key) {
+        if (!failures.isEmpty())
+            failures.remove(key);
+    }
+
+    public int size() {
+        return failures.size();
+    }
+
+    private long delay(int attempts) {
+        final var doublings = Math.min(attempts - 1, Long.numberOfLeadingZeros(initialDelayNanos) - 1);
+        return Math.min(maximumDelayNanos, initialDelayNanos << doublings);
+    }
+
+    private static final class Failure {
+
+        final int attempts;
+        final long retryAt;
+        final Throwable cause;
+
+        Failure(int attempts, long retryAt, Throwable cause) {
+            this.attempts = attempts;
+            this.retryAt = retryAt;
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.scb.java.interview.test;
+
+import java.util.Arrays;
+
+/**
+ * A 4-bit Count-Min sketch used as the TinyLFU admission filter. Counters are halved once
+ * the number of increments reaches ten times the table width so that the history ages.
+ */
+public class FrequencySketch<E> {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 26;
+
+    private final int maximumCapacity;
+    private long[] table;
+    private long sampleSize;
+    private long size;
+
+    /** Creates a sketch for up to the given number of entries; its table starts small and grows on demand. */
+    public FrequencySketch(long maximumSize) {
+        maximumCapacity = ceilingPowerOfTwo((int) Math.min(Math.max(maximumSize, 16), MAXIMUM_CAPACITY));
+        table = new long[Math.min(maximumCapacity, INITIAL_CAPACITY)];
+        sampleSize = 10L * table.length;
+    }
+
+    /**
+     * Grows the table towards the given number of entries, up to the maximum. The table is copied
+     * into both halves of the new one, so every counter keeps its value and no history is lost.
+     */
+    public void ensureCapacity(long expectedSize) {
+        if (expectedSize <= table.length || table.length == maximumCapacity)
+            return;
+        final var length = ceilingPowerOfTwo((int) Math.min(expectedSize, maximumCapacity));
+        final var grown = Arrays.copyOf(table, length);
+        for (var i = table.length; i < length; i++)
+            grown[i] = table[i & (table.length - 1)];
+        table = grown;
+        sampleSize = 10L * length;
+    }
+
+    int capacity() {
+        return table.length;
+    }
+
+    public int frequency(E element) {
+        final var hash = spread(element.hashCode());
+        var frequency = Integer.MAX_VALUE;
+        for (var depth = 0; depth < SEEDS.length; depth++) {
+            final var counter = counterIndex(hash, depth);
+            final var count = (int) ((table[counter >>> 4] >>> ((counter & 15) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    public void increment(E element) {
+        final var hash = spread(element.hashCode());
+        var added = false;
+        for (var depth = 0; depth < SEEDS.length; depth++) {
+            final var counter = counterIndex(hash, depth);
+            final var slot = counter >>> 4;
+            final var offset = (counter & 15) << 2;
+            if (((table[slot] >>> offset) & 0xfL) != 0xfL) {
+                table[slot] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++size == sampleSize)
+            reset();
+    }
+
+    private void reset() {
+        for (var i = 0; i < table.length; i++)
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        size >>>= 1;
+    }
+
+    private int counterIndex(int hash, int depth) {
+        var h = (hash + SEEDS[depth]) * SEEDS[depth];
+        h += h >>> 32;
+        return (int) h & ((table.length << 4) - 1);
+    }
+
+    static int spread(int hash) {
+        var h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int ceilingPowerOfTwo(int value) {
+        return 1 << -Integer.numberOfLeadingZeros(value - 1);
+    }
+}
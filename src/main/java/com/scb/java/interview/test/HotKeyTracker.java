@@ -0,0 +1,233 @@
+package com.scb.java.interview.test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Finds the keys that account for the most of some quantity, such as reads or load time, in fixed
+ * memory. Amounts are summed into a Count-Min sketch, and a key whose estimate beats the smallest
+ * of the current top keys takes that key's place. Estimates are halved every aging period so the
+ * ranking follows recent traffic. Recording allocates nothing and never blocks: updates to the
+ * top keys are skipped while another thread is making one. Single hits are sampled, so a hot key
+ * does not turn its counters into contended cache lines.
+ */
+public class HotKeyTracker<K> {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final HotKeyTracker<?> DISABLED = new HotKeyTracker<>();
+    /** A key already near the top is re-ranked only on every sixteenth recording, to keep hot keys off the lock. */
+    private static final int RERANK_INTERVAL = 16;
+    private static final int RERANK_ALWAYS = 64;
+    private static final int HIT_SAMPLE_RATE = 16;
+
+    private final AtomicLongArray counters;
+    private final int widthMask;
+    private final int widthShift;
+    private final Object[] topKeys;
+    private final long[] topCounts;
+    private final ReentrantLock topLock;
+    private final Ticker ticker;
+    private final long agingPeriodNanos;
+    private final AtomicLong nextAgingTime;
+    private volatile long threshold;
+
+    private HotKeyTracker() {
+        this.counters = null;
+        this.widthMask = 0;
+        this.widthShift = 0;
+        this.topKeys = new Object[0];
+        this.topCounts = new long[0];
+        this.topLock = null;
+        this.ticker = null;
+        this.agingPeriodNanos = 0;
+        this.nextAgingTime = null;
+    }
+
+    /**
+     * @param topKeys number of keys to rank
+     * @param width   counters per sketch row; more counters mean fewer over-estimates from collisions
+     */
+    public HotKeyTracker(int topKeys, int width, long agingPeriodNanos, Ticker ticker) {
+        CacheBuilder.requireArgument(topKeys > 0, "topKeys must be positive");
+        CacheBuilder.requireArgument(width > 0, "width must be positive");
+        CacheBuilder.requireArgument(agingPeriodNanos > 0, "agingPeriod must be positive");
+        final var rowWidth = FrequencySketch.ceilingPowerOfTwo(Math.max(width, 16));
+        this.counters = new AtomicLongArray(SEEDS.length * rowWidth);
+        this.widthMask = rowWidth - 1;
+        this.widthShift = Long.SIZE - Integer.numberOfTrailingZeros(rowWidth);
+        this.topKeys = new Object[topKeys];
+        this.topCounts = new long[topKeys];
+        this.topLock = new ReentrantLock();
+        this.ticker = Objects.requireNonNull(ticker);
+        this.agingPeriodNanos = agingPeriodNanos;
+        this.nextAgingTime = new AtomicLong(CacheImpl.saturatedAdd(ticker.read(), agingPeriodNanos));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K> HotKeyTracker<K> disabled() {
+        return (HotKeyTracker<K>) DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return Objects.nonNull(counters);
+    }
+
+    /** Records one hit by counting a random one in {@value #HIT_SAMPLE_RATE} hits for all of them. */
+    public void recordHit(K key) {
+        if (Objects.nonNull(counters) && ThreadLocalRandom.current().nextInt(HIT_SAMPLE_RATE) == 0)
+            record(key, HIT_SAMPLE_RATE);
+    }
+
+    public void record(K key, long amount) {
+        if (Objects.isNull(counters) || amount <= 0)
+            return;
+        final var hash = FrequencySketch.spread(key.hashCode());
+        var estimate = Long.MAX_VALUE;
+        for (var depth = 0; depth < SEEDS.length; depth++)
+            estimate = Math.min(estimate, counters.addAndGet(indexOf(hash, depth), amount));
+        if (estimate > threshold && reranks(estimate, amount))
+            rank(key, estimate);
+        if ((estimate & 1023) < amount)
+            ageIfDue();
+    }
+
+    public long estimate(K key) {
+        if (Objects.isNull(counters))
+            return 0;
+        final var hash = FrequencySketch.spread(key.hashCode());
+        var estimate = Long.MAX_VALUE;
+        for (var depth = 0; depth < SEEDS.length; depth++)
+            estimate = Math.min(estimate, counters.get(indexOf(hash, depth)));
+        return estimate;
+    }
+
+    /** Returns the top keys, highest current estimate first. */
+    @SuppressWarnings("unchecked")
+    public List<HotKey<K>> topKeys() {
+        if (Objects.isNull(counters))
+            return List.of();
+        ageIfDue();
+        final var candidates = new ArrayList<K>(topKeys.length);
+        topLock.lock();
+        try {
+            for (var key : topKeys) {
+                if (Objects.nonNull(key))
+                    candidates.add((K) key);
+            }
+        } finally {
+            topLock.unlock();
+        }
+        final var result = new ArrayList<HotKey<K>>(candidates.size());
+        for (K key : candidates)
+            result.add(new HotKey<>(key, estimate(key)));
+        result.sort(Comparator.comparingLong(HotKey<K>::getCount).reversed());
+        return result;
+    }
+
+    /**
+     * Whether a key is re-ranked after the amount took its estimate to the given one: on each of its
+     * first {@value #RERANK_ALWAYS} recordings, then whenever the estimate passes a multiple of
+     * {@value #RERANK_INTERVAL} such amounts.
+     */
+    static boolean reranks(long estimate, long amount) {
+        final var unit = Math.min(amount, Long.MAX_VALUE / RERANK_ALWAYS);
+        final var step = unit * RERANK_INTERVAL;
+        return estimate < unit * RERANK_ALWAYS || (estimate - amount) / step != estimate / step;
+    }
+
+    private void rank(K key, long estimate) {
+        if (!topLock.tryLock())
+            return;
+        try {
+            var empty = -1;
+            var minimum = -1;
+            for (var i = 0; i < topKeys.length; i++) {
+                if (Objects.isNull(topKeys[i])) {
+                    if (empty < 0)
+                        empty = i;
+                } else if (topKeys[i].equals(key)) {
+                    topCounts[i] = estimate;
+                    updateThreshold();
+                    return;
+                } else if (minimum < 0 || topCounts[i] < topCounts[minimum]) {
+                    minimum = i;
+                }
+            }
+            final var slot = empty >= 0 ? empty : minimum;
+            if (empty < 0 && estimate <= topCounts[minimum])
+                return;
+            topKeys[slot] = key;
+            topCounts[slot] = estimate;
+            updateThreshold();
+        } finally {
+            topLock.unlock();
+        }
+    }
+
+    private void ageIfDue() {
+        final var now = ticker.read();
+        final var due = nextAgingTime.get();
+        if (now - due < 0 || !nextAgingTime.compareAndSet(due, CacheImpl.saturatedAdd(now, agingPeriodNanos)))
+            return;
+        // Increments racing with the halving may be lost, which only makes the estimates a little low.
+        for (var i = 0; i < counters.length(); i++)
+            counters.set(i, counters.get(i) >>> 1);
+        topLock.lock();
+        try {
+            for (var i = 0; i < topCounts.length; i++)
+                topCounts[i] >>>= 1;
+            updateThreshold();
+        } finally {
+            topLock.unlock();
+        }
+    }
+
+    private void updateThreshold() {
+        var minimum = Long.MAX_VALUE;
+        for (var i = 0; i < topKeys.length; i++) {
+            if (Objects.isNull(topKeys[i])) {
+                minimum = 0;
+                break;
+            }
+            minimum = Math.min(minimum, topCounts[i]);
+        }
+        threshold = minimum;
+    }
+
+    private int indexOf(int hash, int depth) {
+        // The high bits of the product depend on every bit of the hash, so each row spreads keys independently.
+        final var h = (hash + SEEDS[depth]) * SEEDS[depth];
+        return depth * (widthMask + 1) + (int) (h >>> widthShift);
+    }
+
+    public static final class HotKey<K> {
+
+        private final K key;
+        private final long count;
+
+        HotKey(K key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + count;
+        }
+    }
+}
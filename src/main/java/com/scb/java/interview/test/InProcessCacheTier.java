@@ -0,0 +1,93 @@
+package com.scb.java.interview.test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link RemoteCacheTier} kept in this process, standing in for a cache server when several
+ * caches in one JVM play the part of separate nodes. Every call waits for the configured round
+ * trip time before it is served.
+ */
+public class InProcessCacheTier<K, V> implements RemoteCacheTier<K, V> {
+
+    private final ConcurrentMap<K, V> data;
+    private final long roundTripNanos;
+    private final LongAdder roundTrips;
+
+    public InProcessCacheTier() {
+        this(Duration.ZERO);
+    }
+
+    public InProcessCacheTier(Duration roundTrip) {
+        CacheBuilder.requireArgument(!roundTrip.isNegative(), "roundTrip must not be negative");
+        this.data = new ConcurrentHashMap<>();
+        this.roundTripNanos = roundTrip.toNanos();
+        this.roundTrips = new LongAdder();
+    }
+
+    @Override
+    public V get(K key) {
+        roundTrip();
+        return data.get(key);
+    }
+
+    @Override
+    public Map<K, V> getAll(Set<K> keys) {
+        roundTrip();
+        final var result = new LinkedHashMap<K, V>();
+        for (K key : keys) {
+            final var value = data.get(key);
+            if (Objects.nonNull(value))
+                result.put(key, value);
+        }
+        return result;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        roundTrip();
+        data.put(key, Objects.requireNonNull(value));
+    }
+
+    @Override
+    public void putAll(Map<K, V> values) {
+        roundTrip();
+        data.putAll(values);
+    }
+
+    @Override
+    public void invalidate(K key) {
+        roundTrip();
+        data.remove(key);
+    }
+
+    @Override
+    public void invalidateAll(Set<K> keys) {
+        roundTrip();
+        data.keySet().removeAll(keys);
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public long roundTrips() {
+        return roundTrips.sum();
+    }
+
+    private void roundTrip() {
+        roundTrips.increment();
+        if (roundTripNanos == 0)
+            return;
+        final var deadline = System.nanoTime() + roundTripNanos;
+        for (var remaining = roundTripNanos; remaining > 0; remaining = deadline - System.nanoTime())
+            LockSupport.parkNanos(remaining);
+    }
+}
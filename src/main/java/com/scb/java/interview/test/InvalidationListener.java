@@ -0,0 +1,12 @@
+package com.scb.java.interview.test;
+
+/**
+ * Receives the keys whose data changed at the source. Sources call it after the change is
+ * visible, and may call it from any thread; an implementation may block to push back on a
+ * source that publishes faster than it can keep up.
+ */
+@FunctionalInterface
+public interface InvalidationListener<K> {
+
+    void onChange(K key);
+}
@@ -0,0 +1,89 @@
+package com.scb.java.interview.test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, HDR-style log-linear histogram of nanosecond latencies. Every power of two
+ * is split into 32 linear sub-buckets, so any recorded value is reported within about 3% of
+ * its true value whatever its magnitude, and recording is a single atomic increment.
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long nanos) {
+        counts.incrementAndGet(indexOf(Math.max(0, nanos)));
+    }
+
+    public Snapshot snapshot() {
+        final var copy = new long[BUCKETS];
+        for (var i = 0; i < BUCKETS; i++)
+            copy[i] = counts.get(i);
+        return new Snapshot(copy);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        final var exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final var shift = exponent - SUB_BUCKET_BITS;
+        final var subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        final var shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        final var subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        final var lowest = (long) (SUB_BUCKETS + subBucket) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new long[BUCKETS]);
+
+        private final long[] counts;
+        private final long totalCount;
+
+        Snapshot(long[] counts) {
+            this.counts = counts;
+            this.totalCount = Arrays.stream(counts).sum();
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * Returns the latency in nanoseconds at or below which the given percentage (0-100) of
+         * recorded values fall, or 0 when nothing was recorded.
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (totalCount == 0)
+                return 0;
+            final var target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+            var seen = 0L;
+            for (var i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target)
+                    return highestEquivalentValue(i);
+            }
+            return highestEquivalentValue(counts.length - 1);
+        }
+
+        public long getMaxValue() {
+            for (var i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0)
+                    return highestEquivalentValue(i);
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.scb.java.interview.test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Constant-time LFU: keys hang off a list of frequency buckets in ascending order and each
+ * bucket keeps its keys in recency order, so ties are broken by evicting the oldest key.
+ * A hit only allocates when it creates a frequency level that no other key has reached.
+ */
+public class LfuPolicy<K> implements EvictionPolicy<K> {
+
+    private static final class Node<K> {
+        private final K key;
+        private Bucket<K> bucket;
+        private Node<K> previous;
+        private Node<K> next;
+
+        private Node(K key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Bucket<K> {
+        private final long frequency;
+        private final Node<K> head = new Node<>(null);
+        private Bucket<K> previous;
+        private Bucket<K> next;
+
+        private Bucket(long frequency) {
+            this.frequency = frequency;
+            head.previous = head;
+            head.next = head;
+        }
+
+        private boolean isEmpty() {
+            return head.next == head;
+        }
+    }
+
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private final Bucket<K> buckets = new Bucket<>(0);
+
+    public LfuPolicy() {
+        buckets.previous = buckets;
+        buckets.next = buckets;
+    }
+
+    @Override
+    public void recordInsert(K key) {
+        if (nodes.containsKey(key)) {
+            recordAccess(key);
+            return;
+        }
+        final var node = new Node<>(key);
+        nodes.put(key, node);
+        link(node, bucketAfter(buckets, 1));
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        final var node = nodes.get(key);
+        if (Objects.isNull(node))
+            return;
+        final var bucket = node.bucket;
+        final var target = bucketAfter(bucket, bucket.frequency + 1);
+        unlink(node);
+        link(node, target);
+    }
+
+    @Override
+    public void recordRemoval(K key) {
+        final var node = nodes.remove(key);
+        if (Objects.nonNull(node))
+            unlink(node);
+    }
+
+    @Override
+    public K evict() {
+        final var lowest = buckets.next;
+        if (lowest == buckets)
+            return null;
+        final var victim = lowest.head.next.key;
+        recordRemoval(victim);
+        return victim;
+    }
+
+    private Bucket<K> bucketAfter(Bucket<K> bucket, long frequency) {
+        if (bucket.next != buckets && bucket.next.frequency == frequency)
+            return bucket.next;
+        final var created = new Bucket<K>(frequency);
+        created.previous = bucket;
+        created.next = bucket.next;
+        bucket.next.previous = created;
+        bucket.next = created;
+        return created;
+    }
+
+    private void link(Node<K> node, Bucket<K> bucket) {
+        node.bucket = bucket;
+        node.previous = bucket.head.previous;
+        node.next = bucket.head;
+        bucket.head.previous.next = node;
+        bucket.head.previous = node;
+    }
+
+    private void unlink(Node<K> node) {
+        final var bucket = node.bucket;
+        node.previous.next = node.next;
+        node.next.previous = node.previous;
+        node.previous = null;
+        node.next = null;
+        node.bucket = null;
+        if (bucket.isEmpty()) {
+            bucket.previous.next = bucket.next;
+            bucket.next.previous = bucket.previous;
+        }
+    }
+}
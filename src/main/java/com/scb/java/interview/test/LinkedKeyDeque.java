@@ -0,0 +1,99 @@
+package com.scb.java.interview.test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An access-ordered deque of keys with constant-time lookup, removal and move-to-tail, used as
+ * the recency list of the eviction policies.
+ */
+public class LinkedKeyDeque<K> {
+
+    private static final class Link<K> {
+        private final K key;
+        private Link<K> previous;
+        private Link<K> next;
+
+        private Link(K key) {
+            this.key = key;
+        }
+    }
+
+    private final Map<K, Link<K>> links = new HashMap<>();
+    private final Link<K> head = new Link<>(null);
+
+    public LinkedKeyDeque() {
+        head.previous = head;
+        head.next = head;
+    }
+
+    public boolean contains(K key) {
+        return links.containsKey(key);
+    }
+
+    public int size() {
+        return links.size();
+    }
+
+    public boolean isEmpty() {
+        return links.isEmpty();
+    }
+
+    public boolean addLast(K key) {
+        if (links.containsKey(key))
+            return false;
+        final var link = new Link<>(key);
+        links.put(key, link);
+        linkLast(link);
+        return true;
+    }
+
+    public boolean moveToLast(K key) {
+        final var link = links.get(key);
+        if (Objects.isNull(link))
+            return false;
+        unlink(link);
+        linkLast(link);
+        return true;
+    }
+
+    public boolean remove(K key) {
+        final var link = links.remove(key);
+        if (Objects.isNull(link))
+            return false;
+        unlink(link);
+        return true;
+    }
+
+    public K peekFirst() {
+        return head.next.key;
+    }
+
+    public K peekLast() {
+        return head.previous.key;
+    }
+
+    public K pollFirst() {
+        final var first = head.next;
+        if (first == head)
+            return null;
+        links.remove(first.key);
+        unlink(first);
+        return first.key;
+    }
+
+    private void linkLast(Link<K> link) {
+        link.previous = head.previous;
+        link.next = head;
+        head.previous.next = link;
+        head.previous = link;
+    }
+
+    private void unlink(Link<K> link) {
+        link.previous.next = link.next;
+        link.next.previous = link.previous;
+        link.previous = null;
+        link.next = null;
+    }
+}
@@ -0,0 +1,14 @@
+package com.scb.java.interview.test;
+
+/**
+ * Thrown to a caller that gave up waiting for a load. The load itself keeps running and still
+ * populates the cache if it eventually succeeds.
+ */
+public class LoadTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LoadTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,320 @@
+package com.scb.java.interview.test;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * A cache keyed by primitive longs. Entries live in parallel arrays probed linearly, so there is
+ * no boxed key or node object per entry, and a hit is an optimistic read that allocates nothing.
+ * A bounded cache evicts with the CLOCK algorithm: a hit sets a reference bit, and the hand skips
+ * (and clears) referenced slots when looking for a victim.
+ */
+public class LongObjCache<V> implements Cache<Long, V> {
+
+    private static final int UNBOUNDED = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final LongFunction<V> dataService;
+    private final BlockedDataReader<Long, V> blockedDataReader;
+    private final int maximumSize;
+    private final StampedLock lock;
+    private Table table;
+    private int size;
+    private int hand;
+
+    public LongObjCache(LongFunction<V> dataService) {
+        this(dataService, UNBOUNDED);
+    }
+
+    public LongObjCache(LongFunction<V> dataService, int maximumSize) {
+        CacheBuilder.requireArgument(maximumSize == UNBOUNDED || maximumSize > 0, "maximumSize must be positive");
+        this.dataService = Objects.requireNonNull(dataService);
+        this.blockedDataReader = new BlockedDataReader<>();
+        this.maximumSize = maximumSize;
+        this.lock = new StampedLock();
+        // Bounded tables never resize, and are sized to stay at most three quarters full.
+        this.table = maximumSize == UNBOUNDED
+                ? new Table(INITIAL_CAPACITY, false)
+                : new Table(FrequencySketch.ceilingPowerOfTwo(Math.max(2, maximumSize + maximumSize / 3 + 1)), true);
+    }
+
+    public V get(long key) {
+        final var value = find(key);
+        if (Objects.nonNull(value)) {
+            ThreadDetailService.capture(ThreadDetail.CACHE_NO_LOCK);
+            return value;
+        }
+        return readValueFromDataService(key);
+    }
+
+    @Override
+    public V get(Long key) {
+        return get(key.longValue());
+    }
+
+    public void put(long key, V value) {
+        Objects.requireNonNull(value);
+        final var stamp = lock.writeLock();
+        try {
+            abandonLoad(key);
+            store(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void put(Long key, V value) {
+        put(key.longValue(), value);
+    }
+
+    public void invalidate(long key) {
+        final var stamp = lock.writeLock();
+        try {
+            abandonLoad(key);
+            final var index = slotOf(table, key);
+            if (Objects.nonNull(table.values[index]))
+                delete(index);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void invalidate(Long key) {
+        invalidate(key.longValue());
+    }
+
+    public void invalidateIfKey(LongPredicate predicate) {
+        final var stamp = lock.writeLock();
+        try {
+            for (Long key : blockedDataReader.keySet()) {
+                if (predicate.test(key))
+                    abandonLoad(key);
+            }
+            var index = 0;
+            while (index < table.values.length) {
+                // A deletion shifts a later entry into this slot, so it is examined again.
+                if (Objects.nonNull(table.values[index]) && predicate.test(table.keys[index]))
+                    delete(index);
+                else
+                    index++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void invalidateIf(Predicate<? super Long> predicate) {
+        invalidateIfKey(predicate::test);
+    }
+
+    @Override
+    public void invalidateAll() {
+        final var stamp = lock.writeLock();
+        try {
+            blockedDataReader.keySet().clear();
+            table = new Table(table.values.length, maximumSize != UNBOUNDED);
+            size = 0;
+            hand = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        final var stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private V readValueFromDataService(long key) {
+        V value;
+
+        final var future = new CompletableFuture<V>();
+        final var inFlight = blockedDataReader.set(key, future);
+
+        if (inFlight != future) {
+            value = CacheImpl.join(inFlight);
+            ThreadDetailService.capture(ThreadDetail.CACHE_READ);
+            return value;
+        }
+
+        try {
+            value = find(key);
+            if (Objects.isNull(value)) {
+                value = dataService.apply(key);
+                if (Objects.nonNull(value))
+                    install(key, value, future);
+            }
+            future.complete(value);
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            blockedDataReader.remove(key, future);
+        }
+        if (Objects.nonNull(value))
+            ThreadDetailService.capture(ThreadDetail.DATASERVICE_WRITE);
+
+        return value;
+    }
+
+    private V find(long key) {
+        var stamp = lock.tryOptimisticRead();
+        var value = probe(key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = probe(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V probe(long key) {
+        final var table = this.table;
+        final var mask = table.values.length - 1;
+        var index = indexOf(key) & mask;
+        for (var probes = 0; probes <= mask; probes++, index = (index + 1) & mask) {
+            final var value = table.values[index];
+            if (Objects.isNull(value))
+                return null;
+            if (table.keys[index] == key) {
+                if (maximumSize != UNBOUNDED)
+                    table.referenced[index] = true;
+                return (V) value;
+            }
+        }
+        return null;
+    }
+
+    private void install(long key, V value, CompletableFuture<V> loading) {
+        final var stamp = lock.writeLock();
+        try {
+            // A load that was invalidated while in flight no longer owns the key and must not store its result.
+            if (blockedDataReader.get(key) == loading)
+                store(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void abandonLoad(long key) {
+        final var loading = blockedDataReader.get(key);
+        if (Objects.nonNull(loading))
+            blockedDataReader.remove(key, loading);
+    }
+
+    private void store(long key, V value) {
+        var index = slotOf(table, key);
+        if (Objects.nonNull(table.values[index])) {
+            table.values[index] = value;
+            return;
+        }
+        if (maximumSize != UNBOUNDED && size >= maximumSize) {
+            evict();
+            index = slotOf(table, key);
+        } else if (maximumSize == UNBOUNDED && 4 * (size + 1) > 3 * table.values.length) {
+            resize();
+            index = slotOf(table, key);
+        }
+        table.keys[index] = key;
+        table.values[index] = value;
+        size++;
+    }
+
+    private void evict() {
+        final var mask = table.values.length - 1;
+        while (true) {
+            final var index = hand;
+            hand = (hand + 1) & mask;
+            if (Objects.isNull(table.values[index]))
+                continue;
+            if (table.referenced[index]) {
+                table.referenced[index] = false;
+                continue;
+            }
+            delete(index);
+            return;
+        }
+    }
+
+    private void delete(int index) {
+        final var keys = table.keys;
+        final var values = table.values;
+        final var referenced = table.referenced;
+        final var mask = values.length - 1;
+        var hole = index;
+        var next = index;
+        // Shift later members of the probe run back so no run is broken by the new empty slot.
+        while (true) {
+            next = (next + 1) & mask;
+            if (Objects.isNull(values[next]))
+                break;
+            final var home = indexOf(keys[next]) & mask;
+            final var movable = hole <= next ? home <= hole || home > next : home <= hole && home > next;
+            if (movable) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                if (Objects.nonNull(referenced))
+                    referenced[hole] = referenced[next];
+                hole = next;
+            }
+        }
+        values[hole] = null;
+        if (Objects.nonNull(referenced))
+            referenced[hole] = false;
+        size--;
+    }
+
+    private void resize() {
+        final var old = table;
+        final var resized = new Table(old.values.length * 2, false);
+        for (var i = 0; i < old.values.length; i++) {
+            if (Objects.nonNull(old.values[i])) {
+                final var index = slotOf(resized, old.keys[i]);
+                resized.keys[index] = old.keys[i];
+                resized.values[index] = old.values[i];
+            }
+        }
+        table = resized;
+    }
+
+    private static int slotOf(Table table, long key) {
+        final var mask = table.values.length - 1;
+        var index = indexOf(key) & mask;
+        while (Objects.nonNull(table.values[index]) && table.keys[index] != key)
+            index = (index + 1) & mask;
+        return index;
+    }
+
+    private static int indexOf(long key) {
+        final var hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static final class Table {
+
+        final long[] keys;
+        final Object[] values;
+        final boolean[] referenced;
+
+        Table(int capacity, boolean bounded) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.referenced = bounded ? new boolean[capacity] : null;
+        }
+    }
+}
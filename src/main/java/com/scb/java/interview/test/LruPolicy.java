@@ -0,0 +1,27 @@
+package com.scb.java.interview.test;
+
+public class LruPolicy<K> implements EvictionPolicy<K> {
+
+    private final LinkedKeyDeque<K> order = new LinkedKeyDeque<>();
+
+    @Override
+    public void recordInsert(K key) {
+        if (!order.addLast(key))
+            order.moveToLast(key);
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        order.moveToLast(key);
+    }
+
+    @Override
+    public void recordRemoval(K key) {
+        order.remove(key);
+    }
+
+    @Override
+    public K evict() {
+        return order.pollFirst();
+    }
+}
@@ -0,0 +1,128 @@
+package com.scb.java.interview.test;
+
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Memoizes functions of one, two, three or any number of arguments with a {@link CacheImpl}, so
+ * concurrent calls with the same arguments share one computation. Calls of several arguments are
+ * cached under a composite key that a hit does not allocate.
+ *
+ * <p>A recursive function is given its own memoized form to call, which makes dynamic-programming
+ * style recursion cache each sub-result. A call that needs its own result, directly or through
+ * other calls, fails with an IllegalStateException rather than waiting on itself forever.
+ */
+public final class Memoizer {
+
+    private static final ThreadLocal<CompositeKey> probes = ThreadLocal.withInitial(CompositeKey::probe);
+
+    private Memoizer() {
+    }
+
+    @FunctionalInterface
+    public interface TriFunction<A, B, C, R> {
+
+        R apply(A first, B second, C third);
+    }
+
+    @FunctionalInterface
+    public interface VarargsFunction<R> {
+
+        R apply(Object... arguments);
+    }
+
+    @FunctionalInterface
+    public interface RecursiveFunction<T, R> {
+
+        R apply(Function<T, R> self, T argument);
+    }
+
+    @FunctionalInterface
+    public interface RecursiveBiFunction<T, U, R> {
+
+        R apply(BiFunction<T, U, R> self, T first, U second);
+    }
+
+    public static <T, R> Function<T, R> memoize(Function<T, R> function) {
+        return memoize(CacheBuilder.newBuilder(), function);
+    }
+
+    public static <T, R> Function<T, R> memoize(CacheBuilder<Object, Object> builder, Function<T, R> function) {
+        return builder.build(Objects.requireNonNull(function))::get;
+    }
+
+    public static <T, U, R> BiFunction<T, U, R> memoize(BiFunction<T, U, R> function) {
+        return memoize(CacheBuilder.newBuilder(), function);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T, U, R> BiFunction<T, U, R> memoize(CacheBuilder<Object, Object> builder, BiFunction<T, U, R> function) {
+        Objects.requireNonNull(function);
+        final CacheImpl<CompositeKey, R> cache = builder.build(
+                key -> function.apply((T) key.first(), (U) key.second()));
+        return (first, second) -> lookup(cache, probes.get().set(first, second));
+    }
+
+    public static <A, B, C, R> TriFunction<A, B, C, R> memoize(TriFunction<A, B, C, R> function) {
+        return memoize(CacheBuilder.newBuilder(), function);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <A, B, C, R> TriFunction<A, B, C, R> memoize(CacheBuilder<Object, Object> builder,
+                                                               TriFunction<A, B, C, R> function) {
+        Objects.requireNonNull(function);
+        final CacheImpl<CompositeKey, R> cache = builder.build(
+                key -> function.apply((A) key.first(), (B) key.second(), (C) key.third()));
+        return (first, second, third) -> lookup(cache, probes.get().set(first, second, third));
+    }
+
+    public static <R> VarargsFunction<R> memoizeVarargs(VarargsFunction<R> function) {
+        return memoizeVarargs(CacheBuilder.newBuilder(), function);
+    }
+
+    public static <R> VarargsFunction<R> memoizeVarargs(CacheBuilder<Object, Object> builder, VarargsFunction<R> function) {
+        Objects.requireNonNull(function);
+        final CacheImpl<CompositeKey, R> cache = builder.build(key -> function.apply(key.arguments().clone()));
+        return arguments -> lookup(cache, probes.get().set(arguments));
+    }
+
+    public static <T, R> Function<T, R> recursive(RecursiveFunction<T, R> function) {
+        return recursive(CacheBuilder.newBuilder(), function);
+    }
+
+    public static <T, R> Function<T, R> recursive(CacheBuilder<Object, Object> builder, RecursiveFunction<T, R> function) {
+        Objects.requireNonNull(function);
+        final var self = new Object() {
+            Function<T, R> memoized;
+        };
+        self.memoized = memoize(builder, argument -> function.apply(self.memoized, argument));
+        return self.memoized;
+    }
+
+    public static <T, U, R> BiFunction<T, U, R> recursive(RecursiveBiFunction<T, U, R> function) {
+        return recursive(CacheBuilder.newBuilder(), function);
+    }
+
+    public static <T, U, R> BiFunction<T, U, R> recursive(CacheBuilder<Object, Object> builder,
+                                                          RecursiveBiFunction<T, U, R> function) {
+        Objects.requireNonNull(function);
+        final var self = new Object() {
+            BiFunction<T, U, R> memoized;
+        };
+        self.memoized = memoize(builder, (T first, U second) -> function.apply(self.memoized, first, second));
+        return self.memoized;
+    }
+
+    private static <R> R lookup(CacheImpl<CompositeKey, R> cache, CompositeKey probe) {
+        final var value = cache.getIfHit(probe);
+        if (Objects.nonNull(value)) {
+            probe.clear();
+            return value;
+        }
+        // The probe is copied before loading, as the load may recurse and refill it.
+        final var key = probe.copy();
+        probe.clear();
+        return cache.get(key);
+    }
+}
@@ -0,0 +1,98 @@
+package com.scb.java.interview.test;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Rough retained sizes of common value types on a 64-bit JVM with compressed references. Strings,
+ * arrays, collections and maps are measured from their contents; any other object counts as a
+ * small fixed size, so values of other types need a weigher of their own to be measured well.
+ */
+public final class MemoryEstimator {
+
+    static final int OBJECT_HEADER = 12;
+    static final int ARRAY_HEADER = 16;
+    static final int REFERENCE = 4;
+    static final int OBJECT = 16;
+    /** The cache's own entry and hash table node, held whatever the key and value. */
+    static final int CACHE_ENTRY = 80;
+    /** Nested collections deeper than this count as a reference only, which also stops cycles. */
+    static final int MAXIMUM_DEPTH = 8;
+
+    private MemoryEstimator() {
+    }
+
+    public static long estimate(Object value) {
+        return estimate(value, 0);
+    }
+
+    private static long estimate(Object value, int depth) {
+        if (Objects.isNull(value))
+            return 0;
+        if (value instanceof String)
+            return string((String) value);
+        if (value instanceof byte[])
+            return array(((byte[]) value).length, Byte.BYTES);
+        if (value instanceof boolean[])
+            return array(((boolean[]) value).length, Byte.BYTES);
+        if (value instanceof char[])
+            return array(((char[]) value).length, Character.BYTES);
+        if (value instanceof short[])
+            return array(((short[]) value).length, Short.BYTES);
+        if (value instanceof int[])
+            return array(((int[]) value).length, Integer.BYTES);
+        if (value instanceof long[])
+            return array(((long[]) value).length, Long.BYTES);
+        if (value instanceof float[])
+            return array(((float[]) value).length, Float.BYTES);
+        if (value instanceof double[])
+            return array(((double[]) value).length, Double.BYTES);
+        if (depth >= MAXIMUM_DEPTH)
+            return OBJECT;
+        if (value instanceof Object[]) {
+            final var elements = (Object[]) value;
+            var size = array(elements.length, REFERENCE);
+            for (var element : elements)
+                size += estimate(element, depth + 1);
+            return size;
+        }
+        if (value instanceof Collection) {
+            final var elements = (Collection<?>) value;
+            // A backing array slot or hash node per element, whichever the implementation uses.
+            var size = align(OBJECT_HEADER + 3L * REFERENCE) + elements.size() * (long) (REFERENCE + OBJECT);
+            for (var element : elements)
+                size += estimate(element, depth + 1);
+            return size;
+        }
+        if (value instanceof Map) {
+            final var entries = (Map<?, ?>) value;
+            var size = align(OBJECT_HEADER + 3L * REFERENCE) + array(entries.size(), REFERENCE)
+                    + entries.size() * align(OBJECT_HEADER + 4 + 3 * REFERENCE);
+            for (var entry : entries.entrySet())
+                size += estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1);
+            return size;
+        }
+        return OBJECT;
+    }
+
+    private static long string(String value) {
+        // Strings holding only Latin-1 characters are stored compactly at one byte per character.
+        var bytesPerChar = Byte.BYTES;
+        for (var i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytesPerChar = Character.BYTES;
+                break;
+            }
+        }
+        return align(OBJECT_HEADER + REFERENCE + 2 * Integer.BYTES) + array(value.length(), bytesPerChar);
+    }
+
+    private static long array(int length, int elementSize) {
+        return align(ARRAY_HEADER + (long) length * elementSize);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
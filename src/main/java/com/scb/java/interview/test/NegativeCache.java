@@ -0,0 +1,104 @@
+package com.scb.java.interview.test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Remembers keys the data service reported as absent. Keys are kept in two generations that
+ * all map to one shared sentinel, so an absent key costs a single map node and no timestamp.
+ * The current generation becomes the previous one every half time-to-live, or earlier when it
+ * holds half of the maximum size, and the old previous generation is dropped. A key is
+ * therefore remembered for at most the full time-to-live, and at least half of it unless the
+ * size bound rotates early.
+ */
+public class NegativeCache<K> {
+
+    private static final Object ABSENT = new Object();
+
+    private final long generationNanos;
+    private final long generationMaximumSize;
+    private final Ticker ticker;
+    private final Lock rotationLock = new ReentrantLock();
+
+    private volatile ConcurrentMap<K, Object> current = new ConcurrentHashMap<>();
+    private volatile ConcurrentMap<K, Object> previous = new ConcurrentHashMap<>();
+    private volatile long generationStart;
+
+    public NegativeCache(long timeToLiveNanos, long maximumSize, Ticker ticker) {
+        CacheBuilder.requireArgument(timeToLiveNanos > 0, "timeToLive must be positive");
+        CacheBuilder.requireArgument(maximumSize > 0, "maximumSize must be positive");
+        this.generationNanos = Math.max(1, timeToLiveNanos / 2);
+        this.generationMaximumSize = Math.max(1, maximumSize / 2);
+        this.ticker = ticker;
+        this.generationStart = ticker.read();
+    }
+
+    public boolean contains(K key) {
+        rotateIfDue();
+        return current.containsKey(key) || previous.containsKey(key);
+    }
+
+    public void add(K key) {
+        rotateIfDue();
+        current.put(key, ABSENT);
+        if (current.size() >= generationMaximumSize)
+            rotate(ticker.read());
+    }
+
+    public void remove(K key) {
+        current.remove(key);
+        previous.remove(key);
+    }
+
+    public void removeIf(Predicate<? super K> predicate) {
+        current.keySet().removeIf(predicate);
+        previous.keySet().removeIf(predicate);
+    }
+
+    public void clear() {
+        rotationLock.lock();
+        try {
+            current = new ConcurrentHashMap<>();
+            previous = new ConcurrentHashMap<>();
+        } finally {
+            rotationLock.unlock();
+        }
+    }
+
+    public long size() {
+        return current.size() + previous.size();
+    }
+
+    private void rotateIfDue() {
+        final var now = ticker.read();
+        if (now - generationStart >= generationNanos)
+            rotate(now);
+    }
+
+    private void rotate(long now) {
+        if (!rotationLock.tryLock())
+            return;
+        try {
+            // Generations start on whole steps so a late rotation cannot extend a key's life.
+            final var elapsed = now - generationStart;
+            if (elapsed >= 2 * generationNanos) {
+                previous = new ConcurrentHashMap<>();
+                generationStart = now - elapsed % generationNanos;
+            } else if (elapsed >= generationNanos) {
+                previous = current;
+                generationStart += generationNanos;
+            } else if (current.size() >= generationMaximumSize) {
+                previous = current;
+                generationStart = now;
+            } else {
+                return;
+            }
+            current = new ConcurrentHashMap<>();
+        } finally {
+            rotationLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.scb.java.interview.test;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link DataService} whose writes go through it, so every change is published to its
+ * listeners once the backing map holds the new value.
+ */
+public class ObservableDataService<K, V> extends DataService<K, V> implements ChangeFeed<K> {
+
+    private final ConcurrentMap<K, V> data;
+    private final List<InvalidationListener<? super K>> listeners = new CopyOnWriteArrayList<>();
+
+    public ObservableDataService(ConcurrentMap<K, V> data) {
+        super(data);
+        this.data = data;
+    }
+
+    public V put(K key, V value) {
+        final var previous = data.put(key, value);
+        publish(key);
+        return previous;
+    }
+
+    public V remove(K key) {
+        final var previous = data.remove(key);
+        publish(key);
+        return previous;
+    }
+
+    /** Publishes a change made to the backing map without going through this service. */
+    public void publish(K key) {
+        for (var listener : listeners)
+            listener.onChange(key);
+    }
+
+    @Override
+    public void addListener(InvalidationListener<? super K> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(InvalidationListener<? super K> listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,219 @@
+package com.scb.java.interview.test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * The off-heap tier of one cache segment. Values are serialised into chunks of a
+ * {@link SlabAllocator}, and the heap only keeps one small node per key, holding the chunk address
+ * and linking the key into its size class's queue, so the tier adds little to the heap the
+ * garbage collector has to trace. When a size class runs out of room its oldest records are
+ * dropped first; a class with no records of its own empties a slab of the largest other class,
+ * which the allocator then hands over.
+ *
+ * <p>Not thread-safe; the owning segment serialises access. {@link #serialize} and
+ * {@link #deserialize} touch no state, so callers run them outside their lock.
+ */
+public class OffHeapStore<K, V> {
+
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    private static final class Node<K> {
+        private final K key;
+        private long address;
+        private Node<K> previous;
+        private Node<K> next;
+
+        private Node(K key) {
+            this.key = key;
+        }
+    }
+
+    /** The keys of one size class, oldest first. */
+    private static final class Queue<K> {
+        private final Node<K> head = new Node<>(null);
+        private int size;
+
+        private Queue() {
+            head.previous = head;
+            head.next = head;
+        }
+
+        private void addLast(Node<K> node) {
+            node.previous = head.previous;
+            node.next = head;
+            head.previous.next = node;
+            head.previous = node;
+            size++;
+        }
+
+        private void remove(Node<K> node) {
+            node.previous.next = node.next;
+            node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+            size--;
+        }
+
+        private Node<K> first() {
+            return head.next == head ? null : head.next;
+        }
+    }
+
+    private final Serializer<V> serializer;
+    private final SlabAllocator allocator;
+    private final Map<K, Node<K>> index = new HashMap<>();
+    private final List<Queue<K>> sizeClasses = new ArrayList<>();
+
+    public OffHeapStore(Serializer<V> serializer, SlabAllocator allocator) {
+        this.serializer = Objects.requireNonNull(serializer);
+        this.allocator = Objects.requireNonNull(allocator);
+        for (var i = 0; i <= allocator.sizeClass(allocator.maximumChunkSize()); i++)
+            sizeClasses.add(new Queue<>());
+    }
+
+    /** Returns the record {@link #putRecord} stores for the value. */
+    public byte[] serialize(V value, long writeTime) {
+        final var bytes = serializer.serialize(value);
+        return ByteBuffer.allocate(HEADER_SIZE + bytes.length)
+                .putInt(bytes.length)
+                .putLong(writeTime)
+                .put(bytes)
+                .array();
+    }
+
+    /** Returns the value and write time of a record {@link #takeRecord} returned. */
+    public Record<V> deserialize(byte[] record) {
+        final var buffer = ByteBuffer.wrap(record);
+        final var bytes = new byte[buffer.getInt()];
+        final var writeTime = buffer.getLong();
+        buffer.get(bytes);
+        return new Record<>(serializer.deserialize(bytes), writeTime);
+    }
+
+    public boolean put(K key, V value, long writeTime) {
+        return putRecord(key, serialize(value, writeTime));
+    }
+
+    /**
+     * Stores the record, replacing any previous one, and returns whether it fit. A record larger
+     * than a slab, or one that finds no room even after dropping records, is not stored.
+     */
+    public boolean putRecord(K key, byte[] record) {
+        remove(key);
+        if (record.length > allocator.maximumChunkSize())
+            return false;
+        final var queue = sizeClasses.get(allocator.sizeClass(record.length));
+        var address = allocator.allocate(record.length);
+        while (address == SlabAllocator.NO_ADDRESS && queue.size > 0) {
+            drop(queue.first());
+            address = allocator.allocate(record.length);
+        }
+        if (address == SlabAllocator.NO_ADDRESS && emptySlabOfLargestClass())
+            address = allocator.allocate(record.length);
+        if (address == SlabAllocator.NO_ADDRESS)
+            return false;
+        allocator.write(address, record, 0, record.length);
+        final var node = new Node<>(key);
+        node.address = address;
+        index.put(key, node);
+        queue.addLast(node);
+        return true;
+    }
+
+    /** Removes the record for the key and returns it, or null when the tier does not hold it. */
+    public Record<V> take(K key) {
+        final var record = takeRecord(key);
+        return Objects.isNull(record) ? null : deserialize(record);
+    }
+
+    public byte[] takeRecord(K key) {
+        final var node = index.get(key);
+        if (Objects.isNull(node))
+            return null;
+        final var header = new byte[HEADER_SIZE];
+        allocator.read(node.address, header, 0, HEADER_SIZE);
+        final var record = new byte[HEADER_SIZE + ByteBuffer.wrap(header).getInt()];
+        allocator.read(node.address, record, 0, record.length);
+        drop(node);
+        return record;
+    }
+
+    public boolean remove(K key) {
+        final var node = index.get(key);
+        if (Objects.isNull(node))
+            return false;
+        drop(node);
+        return true;
+    }
+
+    public void removeIf(Predicate<? super K> predicate) {
+        for (var queue : sizeClasses) {
+            var node = queue.first();
+            while (Objects.nonNull(node) && node != queue.head) {
+                final var next = node.next;
+                if (predicate.test(node.key))
+                    drop(node);
+                node = next;
+            }
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long reservedBytes() {
+        return allocator.reservedBytes();
+    }
+
+    /** Drops every record in the slab holding the oldest record of the class with the most records. */
+    private boolean emptySlabOfLargestClass() {
+        Queue<K> largest = null;
+        for (var queue : sizeClasses) {
+            if (Objects.isNull(largest) || queue.size > largest.size)
+                largest = queue;
+        }
+        if (largest.size == 0)
+            return false;
+        final var slab = SlabAllocator.slabOf(largest.first().address);
+        var node = largest.first();
+        while (node != largest.head) {
+            final var next = node.next;
+            if (SlabAllocator.slabOf(node.address) == slab)
+                drop(node);
+            node = next;
+        }
+        return true;
+    }
+
+    private void drop(Node<K> node) {
+        index.remove(node.key);
+        sizeClasses.get(allocator.sizeClassOf(node.address)).remove(node);
+        allocator.free(node.address);
+    }
+
+    public static final class Record<V> {
+
+        private final V value;
+        private final long writeTime;
+
+        Record(V value, long writeTime) {
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public long getWriteTime() {
+            return writeTime;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.scb.java.interview.test;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A lossy, striped ring buffer that records reads so the eviction policy can replay them
+ * later under the eviction lock. Offers never block: when a stripe is full the read is
+ * dropped, which only costs the policy a little accuracy.
+ */
+public class ReadBuffer<E> {
+
+    public static final int SUCCESS = 0;
+    public static final int FULL = 1;
+    public static final int FAILED = 2;
+
+    static final int STRIPES = FrequencySketch.ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors());
+    static final int BUFFER_SIZE = 16;
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+    // Counters of neighbouring stripes are kept a cache line apart.
+    private static final int PADDING = 16;
+
+    private final AtomicReferenceArray<E> elements = new AtomicReferenceArray<>(STRIPES * BUFFER_SIZE);
+    private final AtomicLongArray writeCounts = new AtomicLongArray(STRIPES * PADDING);
+    private final AtomicLongArray readCounts = new AtomicLongArray(STRIPES * PADDING);
+
+    public int offer(E element) {
+        final var stripe = stripe();
+        final var counter = stripe * PADDING;
+        final var head = readCounts.get(counter);
+        final var tail = writeCounts.get(counter);
+        final var size = tail - head;
+        if (size >= BUFFER_SIZE)
+            return FULL;
+        if (!writeCounts.compareAndSet(counter, tail, tail + 1))
+            return FAILED;
+        elements.lazySet(stripe * BUFFER_SIZE + (int) (tail & BUFFER_MASK), element);
+        return size + 1 >= BUFFER_SIZE ? FULL : SUCCESS;
+    }
+
+    /**
+     * Replays buffered reads into the consumer. Callers must serialise draining.
+     */
+    public void drainTo(Consumer<? super E> consumer) {
+        for (var stripe = 0; stripe < STRIPES; stripe++) {
+            final var counter = stripe * PADDING;
+            var head = readCounts.get(counter);
+            final var tail = writeCounts.get(counter);
+            for (; head < tail; head++) {
+                final var index = stripe * BUFFER_SIZE + (int) (head & BUFFER_MASK);
+                final var element = elements.get(index);
+                if (element == null)
+                    break;
+                elements.lazySet(index, null);
+                consumer.accept(element);
+            }
+            readCounts.lazySet(counter, head);
+        }
+    }
+
+    private static int stripe() {
+        return FrequencySketch.spread((int) Thread.currentThread().getId()) & (STRIPES - 1);
+    }
+}
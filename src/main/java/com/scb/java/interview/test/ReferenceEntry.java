@@ -0,0 +1,85 @@
+package com.scb.java.interview.test;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+
+/**
+ * A cache entry whose key is held weakly, whose value is held softly or weakly, or both, so the
+ * garbage collector may clear them. A cleared value's reference is enqueued and leads back to its
+ * entry, which the cache then removes.
+ */
+final class ReferenceEntry<K, V> extends CacheEntry<K, V> {
+
+    /** How strongly an entry holds its value. */
+    enum Strength {
+        STRONG,
+        SOFT,
+        WEAK
+    }
+
+    private final WeakReference<K> keyReference;
+    private final ValueReference<K, V> valueReference;
+
+    ReferenceEntry(K key, V value, int weight, boolean weakKey, Strength valueStrength, ReferenceQueue<V> queue) {
+        super(weakKey ? null : key, valueStrength == Strength.STRONG ? value : null, weight);
+        this.keyReference = weakKey ? new WeakReference<>(key) : null;
+        if (valueStrength == Strength.SOFT)
+            this.valueReference = new SoftValue<>(value, queue, this);
+        else if (valueStrength == Strength.WEAK)
+            this.valueReference = new WeakValue<>(value, queue, this);
+        else
+            this.valueReference = null;
+    }
+
+    /** Returns the key, or null once it was collected. */
+    @Override
+    public K getKey() {
+        return Objects.isNull(keyReference) ? super.getKey() : keyReference.get();
+    }
+
+    /** Returns the value, or null once it was collected. */
+    @Override
+    public V getValue() {
+        return Objects.isNull(valueReference) ? super.getValue() : valueReference.get();
+    }
+
+    /** A value's reference, which knows its entry. */
+    interface ValueReference<K, V> {
+
+        V get();
+
+        ReferenceEntry<K, V> entry();
+    }
+
+    private static final class SoftValue<K, V> extends SoftReference<V> implements ValueReference<K, V> {
+
+        private final ReferenceEntry<K, V> entry;
+
+        SoftValue(V value, ReferenceQueue<V> queue, ReferenceEntry<K, V> entry) {
+            super(value, queue);
+            this.entry = entry;
+        }
+
+        @Override
+        public ReferenceEntry<K, V> entry() {
+            return entry;
+        }
+    }
+
+    private static final class WeakValue<K, V> extends WeakReference<V> implements ValueReference<K, V> {
+
+        private final ReferenceEntry<K, V> entry;
+
+        WeakValue(V value, ReferenceQueue<V> queue, ReferenceEntry<K, V> entry) {
+            super(value, queue);
+            this.entry = entry;
+        }
+
+        @Override
+        public ReferenceEntry<K, V> entry() {
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.scb.java.interview.test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A cache shared between processes, such as a cache server, used as the far tier of a
+ * {@link TieredCache}. Each call is expected to cost a network round trip, so implementations
+ * should answer {@link #getAll(Set)} in one.
+ */
+public interface RemoteCacheTier<K, V> {
+
+    V get(K key);
+
+    default Map<K, V> getAll(Set<K> keys) {
+        final var result = new LinkedHashMap<K, V>();
+        for (K key : keys) {
+            final var value = get(key);
+            if (Objects.nonNull(value))
+                result.put(key, value);
+        }
+        return result;
+    }
+
+    void put(K key, V value);
+
+    default void putAll(Map<K, V> values) {
+        values.forEach(this::put);
+    }
+
+    void invalidate(K key);
+
+    default void invalidateAll(Set<K> keys) {
+        keys.forEach(this::invalidate);
+    }
+}
@@ -0,0 +1,12 @@
+package com.scb.java.interview.test;
+
+/**
+ * Converts values to and from the bytes kept in the off-heap tier. Implementations must be
+ * thread-safe, and {@code deserialize(serialize(value))} must yield an equal value.
+ */
+public interface Serializer<V> {
+
+    byte[] serialize(V value);
+
+    V deserialize(byte[] bytes);
+}
@@ -0,0 +1,142 @@
+package com.scb.java.interview.test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hands out fixed-size chunks of direct memory. Memory is reserved in slabs, each of which is
+ * carved into chunks of a single power-of-two size class the first time that class needs room,
+ * so freeing never fragments a slab. Once every slab is reserved, a slab whose chunks are all
+ * free is handed to a class that needs room. Chunks are addressed by a long packing the slab
+ * index and the offset within it. Not thread-safe; the owning store serialises access.
+ */
+public class SlabAllocator {
+
+    static final int MINIMUM_CHUNK_SIZE = 64;
+    static final long NO_ADDRESS = -1;
+
+    private final int slabSize;
+    private final int maximumSlabs;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private final List<Integer> slabClasses = new ArrayList<>();
+    private final long[][] freeChunks;
+    private final int[] freeCounts;
+    private int[] allocatedChunks = new int[0];
+
+    public SlabAllocator(int slabSize, long capacity) {
+        CacheBuilder.requireArgument(slabSize >= MINIMUM_CHUNK_SIZE && Integer.bitCount(slabSize) == 1,
+                "slabSize must be a power of two of at least " + MINIMUM_CHUNK_SIZE);
+        CacheBuilder.requireArgument(capacity >= slabSize, "capacity must hold at least one slab");
+        this.slabSize = slabSize;
+        this.maximumSlabs = (int) Math.min(Integer.MAX_VALUE, capacity / slabSize);
+        final var classes = sizeClass(slabSize) + 1;
+        this.freeChunks = new long[classes][];
+        this.freeCounts = new int[classes];
+        Arrays.setAll(freeChunks, i -> new long[0]);
+    }
+
+    public int maximumChunkSize() {
+        return slabSize;
+    }
+
+    public long allocate(int size) {
+        if (size > slabSize)
+            return NO_ADDRESS;
+        final var sizeClass = sizeClass(size);
+        if (freeCounts[sizeClass] == 0 && !growClass(sizeClass))
+            return NO_ADDRESS;
+        final var address = freeChunks[sizeClass][--freeCounts[sizeClass]];
+        allocatedChunks[slabOf(address)]++;
+        return address;
+    }
+
+    public void free(long address) {
+        final var slab = slabOf(address);
+        allocatedChunks[slab]--;
+        push(slabClasses.get(slab), address);
+    }
+
+    /** Returns the size class a chunk of the given size is served from. */
+    public int sizeClass(int size) {
+        final var chunk = FrequencySketch.ceilingPowerOfTwo(Math.max(size, MINIMUM_CHUNK_SIZE));
+        return Integer.numberOfTrailingZeros(chunk) - Integer.numberOfTrailingZeros(MINIMUM_CHUNK_SIZE);
+    }
+
+    public int sizeClassOf(long address) {
+        return slabClasses.get(slabOf(address));
+    }
+
+    public void write(long address, byte[] bytes, int offset, int length) {
+        final var buffer = slabs.get(slabOf(address)).duplicate();
+        buffer.position(offsetOf(address));
+        buffer.put(bytes, offset, length);
+    }
+
+    public void read(long address, byte[] bytes, int offset, int length) {
+        final var buffer = slabs.get(slabOf(address)).duplicate();
+        buffer.position(offsetOf(address));
+        buffer.get(bytes, offset, length);
+    }
+
+    public long reservedBytes() {
+        return (long) slabs.size() * slabSize;
+    }
+
+    private boolean growClass(int sizeClass) {
+        final int slab;
+        if (slabs.size() < maximumSlabs) {
+            slab = slabs.size();
+            slabs.add(ByteBuffer.allocateDirect(slabSize));
+            slabClasses.add(sizeClass);
+            if (slab == allocatedChunks.length)
+                allocatedChunks = Arrays.copyOf(allocatedChunks, Math.max(16, 2 * slab));
+        } else {
+            slab = emptySlab(sizeClass);
+            if (slab < 0)
+                return false;
+            reassign(slab, sizeClass);
+        }
+        final var chunkSize = MINIMUM_CHUNK_SIZE << sizeClass;
+        // Pushed in reverse so the slab is filled from its start.
+        for (var offset = slabSize - chunkSize; offset >= 0; offset -= chunkSize)
+            push(sizeClass, ((long) slab << 32) | offset);
+        return true;
+    }
+
+    private int emptySlab(int sizeClass) {
+        for (var slab = 0; slab < slabs.size(); slab++) {
+            if (allocatedChunks[slab] == 0 && slabClasses.get(slab) != sizeClass)
+                return slab;
+        }
+        return -1;
+    }
+
+    /** Takes the slab's chunks off its current class's free list and gives the slab to another class. */
+    private void reassign(int slab, int sizeClass) {
+        final int previousClass = slabClasses.get(slab);
+        final var chunks = freeChunks[previousClass];
+        var kept = 0;
+        for (var i = 0; i < freeCounts[previousClass]; i++) {
+            if (slabOf(chunks[i]) != slab)
+                chunks[kept++] = chunks[i];
+        }
+        freeCounts[previousClass] = kept;
+        slabClasses.set(slab, sizeClass);
+    }
+
+    private void push(int sizeClass, long address) {
+        if (freeCounts[sizeClass] == freeChunks[sizeClass].length)
+            freeChunks[sizeClass] = Arrays.copyOf(freeChunks[sizeClass], Math.max(16, 2 * freeCounts[sizeClass]));
+        freeChunks[sizeClass][freeCounts[sizeClass]++] = address;
+    }
+
+    static int slabOf(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+}
@@ -0,0 +1,53 @@
+package com.scb.java.interview.test;
+
+/**
+ * Receives cache events as they happen. Implementations are called on the hit path and must
+ * be thread-safe and cheap; {@link ConcurrentStatsCounter} is the built-in one.
+ */
+public interface StatsCounter {
+
+    void recordHits(int count);
+
+    void recordMisses(int count);
+
+    void recordLoadSuccess(long loadTimeNanos);
+
+    void recordLoadFailure(long loadTimeNanos);
+
+    void recordEviction(int weight);
+
+    CacheStats snapshot();
+
+    static StatsCounter disabledStatsCounter() {
+        return DisabledStatsCounter.INSTANCE;
+    }
+
+    enum DisabledStatsCounter implements StatsCounter {
+        INSTANCE;
+
+        @Override
+        public void recordHits(int count) {
+        }
+
+        @Override
+        public void recordMisses(int count) {
+        }
+
+        @Override
+        public void recordLoadSuccess(long loadTimeNanos) {
+        }
+
+        @Override
+        public void recordLoadFailure(long loadTimeNanos) {
+        }
+
+        @Override
+        public void recordEviction(int weight) {
+        }
+
+        @Override
+        public CacheStats snapshot() {
+            return CacheStats.empty();
+        }
+    }
+}
@@ -15,6 +15,10 @@ public class ThreadDetail {
         NO_LOCK
     }
 
+    public static final ThreadDetail CACHE_NO_LOCK = new ThreadDetail(ReadFrom.CACHE, LockType.NO_LOCK);
+    public static final ThreadDetail CACHE_READ = new ThreadDetail(ReadFrom.CACHE, LockType.READ);
+    public static final ThreadDetail DATASERVICE_WRITE = new ThreadDetail(ReadFrom.DATASERVICE, LockType.WRITE);
+
     private final ReadFrom readFrom;
     private final LockType lockType;
 
@@ -16,6 +16,19 @@ public class ThreadDetailService {
         threadDetails = new ConcurrentHashMap<>();
     }
 
+    /**
+     * Captures the detail under the current thread's name. Unnamed threads, such as virtual
+     * threads, are skipped: there can be any number of them, and each would keep an entry forever.
+     */
+    public static void capture(final ThreadDetail threadDetail) {
+        // NON_PROD is a constant, so in prod the JIT folds this call away entirely.
+        if (NON_PROD) {
+            final var name = Thread.currentThread().getName();
+            if (!name.isEmpty())
+                threadDetails.put(name, threadDetail);
+        }
+    }
+
     public static void capture(final String threadName, final ThreadDetail threadDetail) {
         if (NON_PROD)
             threadDetails.put(threadName, threadDetail);
@@ -0,0 +1,11 @@
+package com.scb.java.interview.test;
+
+@FunctionalInterface
+public interface Ticker {
+
+    long read();
+
+    static Ticker systemTicker() {
+        return System::nanoTime;
+    }
+}
@@ -0,0 +1,123 @@
+package com.scb.java.interview.test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A bounded near cache in this process in front of a far cache shared with other processes. A
+ * near miss reads the far tier, and only a far miss reaches the data service; what the data
+ * service returns is written to both tiers, so each key is loaded from the source once for the
+ * whole fleet rather than once per process.
+ */
+public class TieredCache<K, V> implements Cache<K, V> {
+
+    private final Function<K, V> dataService;
+    private final Function<Set<K>, Map<K, V>> batchDataService;
+    private final RemoteCacheTier<K, V> farCache;
+    private final CacheImpl<K, V> nearCache;
+
+    /**
+     * @param nearCache configuration of the near tier, which must be bounded. It is left unchanged,
+     *                  so one builder can configure many tiered caches; its batch loader, if any,
+     *                  loads the far tier's misses in bulk, while bulk reads use the far tier's
+     *                  multi-get first
+     */
+    @SuppressWarnings("unchecked")
+    public TieredCache(CacheBuilder<? super K, ? super V> nearCache, RemoteCacheTier<K, V> farCache, Function<K, V> dataService) {
+        CacheBuilder.requireArgument(nearCache.isBounded(), "nearCache must set maximumSize or maximumWeight");
+        this.dataService = Objects.requireNonNull(dataService);
+        this.batchDataService = (Function<Set<K>, Map<K, V>>) (Function<?, ?>) nearCache.getBatchLoader();
+        this.farCache = Objects.requireNonNull(farCache);
+        this.nearCache = nearCache.<K, V>build(this::load, this::loadAll);
+    }
+
+    @Override
+    public V get(K key) {
+        return nearCache.get(key);
+    }
+
+    @Override
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        return nearCache.getAll(keys);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        farCache.put(key, value);
+        nearCache.put(key, value);
+    }
+
+    @Override
+    public void invalidate(K key) {
+        farCache.invalidate(key);
+        nearCache.invalidate(key);
+    }
+
+    /**
+     * Invalidates the matching keys held in the near tier in both tiers. The far tier cannot be
+     * enumerated, so matching keys only other processes have read stay there. The far tier is
+     * called once, after the near tier is done, and the near tier drops whatever was read back
+     * from the far tier meanwhile.
+     */
+    @Override
+    public void invalidateIf(Predicate<? super K> predicate) {
+        final var matching = new HashSet<K>();
+        nearCache.invalidateIf(key -> {
+            if (!predicate.test(key))
+                return false;
+            matching.add(key);
+            return true;
+        });
+        if (matching.isEmpty())
+            return;
+        farCache.invalidateAll(matching);
+        nearCache.invalidateAll(matching);
+    }
+
+    public CacheImpl<K, V> nearCache() {
+        return nearCache;
+    }
+
+    private V load(K key) {
+        var value = farCache.get(key);
+        if (Objects.isNull(value)) {
+            value = dataService.apply(key);
+            if (Objects.nonNull(value))
+                farCache.put(key, value);
+        }
+        return value;
+    }
+
+    private Map<K, V> loadAll(Set<K> keys) {
+        final var values = new HashMap<>(farCache.getAll(keys));
+        final var missing = new HashSet<>(keys);
+        missing.removeAll(values.keySet());
+        if (missing.isEmpty())
+            return values;
+        final var loaded = new HashMap<K, V>();
+        if (Objects.nonNull(batchDataService)) {
+            final var batch = batchDataService.apply(Collections.unmodifiableSet(missing));
+            if (Objects.nonNull(batch))
+                batch.forEach((key, value) -> {
+                    if (Objects.nonNull(value))
+                        loaded.put(key, value);
+                });
+        } else {
+            for (K key : missing) {
+                final var value = dataService.apply(key);
+                if (Objects.nonNull(value))
+                    loaded.put(key, value);
+            }
+        }
+        if (!loaded.isEmpty())
+            farCache.putAll(loaded);
+        values.putAll(loaded);
+        return values;
+    }
+}
@@ -0,0 +1,130 @@
+package com.scb.java.interview.test;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * A hierarchical timer wheel that schedules entries by their expiration time. Advancing the
+ * wheel only visits the buckets whose time span has passed, so the cost of a sweep depends
+ * on the number of entries due rather than on the size of the cache. Not thread-safe; the
+ * owning cache calls it under its eviction lock.
+ */
+public class TimerWheel<K, V> {
+
+    static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    static final long[] SPANS = {
+            ceilingPowerOfTwo(TimeUnit.SECONDS.toNanos(1)),
+            ceilingPowerOfTwo(TimeUnit.MINUTES.toNanos(1)),
+            ceilingPowerOfTwo(TimeUnit.HOURS.toNanos(1)),
+            ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+            BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+            BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+    };
+    static final long[] SHIFT = {
+            Long.numberOfTrailingZeros(SPANS[0]),
+            Long.numberOfTrailingZeros(SPANS[1]),
+            Long.numberOfTrailingZeros(SPANS[2]),
+            Long.numberOfTrailingZeros(SPANS[3]),
+            Long.numberOfTrailingZeros(SPANS[4]),
+    };
+
+    private final CacheEntry<K, V>[][] wheel;
+    private long nanos;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long currentTime) {
+        this.nanos = currentTime;
+        this.wheel = (CacheEntry<K, V>[][]) new CacheEntry<?, ?>[BUCKETS.length][];
+        for (var i = 0; i < wheel.length; i++) {
+            wheel[i] = (CacheEntry<K, V>[]) new CacheEntry<?, ?>[BUCKETS[i]];
+            for (var j = 0; j < wheel[i].length; j++) {
+                final var sentinel = new CacheEntry<K, V>(null, null, 0);
+                sentinel.setPreviousInTimer(sentinel);
+                sentinel.setNextInTimer(sentinel);
+                wheel[i][j] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Links the entry into the bucket for its timer time, moving it if it was already scheduled.
+     */
+    public void schedule(CacheEntry<K, V> entry) {
+        deschedule(entry);
+        link(findBucket(entry.getTimerTime()), entry);
+    }
+
+    public void deschedule(CacheEntry<K, V> entry) {
+        final var previous = entry.getPreviousInTimer();
+        if (Objects.isNull(previous))
+            return;
+        final var next = entry.getNextInTimer();
+        previous.setNextInTimer(next);
+        next.setPreviousInTimer(previous);
+        entry.setPreviousInTimer(null);
+        entry.setNextInTimer(null);
+    }
+
+    /**
+     * Moves the wheel to the current time. Each entry in a passed bucket is offered to the
+     * expirer, which returns false (after updating the timer time) if the entry is still live
+     * and must be rescheduled.
+     */
+    public void advance(long currentTime, Predicate<CacheEntry<K, V>> expirer) {
+        final var previousTime = nanos;
+        nanos = currentTime;
+        for (var i = 0; i < SHIFT.length; i++) {
+            final var previousTicks = previousTime >>> SHIFT[i];
+            final var currentTicks = currentTime >>> SHIFT[i];
+            if (currentTicks - previousTicks <= 0L)
+                break;
+            expire(i, previousTicks, currentTicks, expirer);
+        }
+    }
+
+    private void expire(int index, long previousTicks, long currentTicks, Predicate<CacheEntry<K, V>> expirer) {
+        final var timerWheel = wheel[index];
+        final var mask = timerWheel.length - 1;
+        final var steps = (int) Math.min(1 + (currentTicks - previousTicks), timerWheel.length);
+        final var start = (int) (previousTicks & mask);
+        final var end = start + steps;
+        for (var i = start; i < end; i++) {
+            final var sentinel = timerWheel[i & mask];
+            var entry = sentinel.getNextInTimer();
+            sentinel.setPreviousInTimer(sentinel);
+            sentinel.setNextInTimer(sentinel);
+            while (entry != sentinel) {
+                final var next = entry.getNextInTimer();
+                entry.setPreviousInTimer(null);
+                entry.setNextInTimer(null);
+                if (entry.getTimerTime() - nanos > 0 || !expirer.test(entry))
+                    schedule(entry);
+                entry = next;
+            }
+        }
+    }
+
+    private CacheEntry<K, V> findBucket(long time) {
+        final var duration = time - nanos;
+        final var length = wheel.length - 1;
+        for (var i = 0; i < length; i++) {
+            if (duration < SPANS[i + 1]) {
+                final var ticks = time >>> SHIFT[i];
+                return wheel[i][(int) (ticks & (wheel[i].length - 1))];
+            }
+        }
+        return wheel[length][0];
+    }
+
+    private void link(CacheEntry<K, V> sentinel, CacheEntry<K, V> entry) {
+        entry.setPreviousInTimer(sentinel.getPreviousInTimer());
+        entry.setNextInTimer(sentinel);
+        sentinel.getPreviousInTimer().setNextInTimer(entry);
+        sentinel.setPreviousInTimer(entry);
+    }
+
+    static long ceilingPowerOfTwo(long value) {
+        return 1L << -Long.numberOfLeadingZeros(value - 1);
+    }
+}
@@ -0,0 +1,64 @@
+package com.scb.java.interview.test;
+
+import java.util.StringJoiner;
+
+/**
+ * One cache event read back from {@link CacheTracer}: a hit, a wait on another caller's load, or a
+ * load, with what it waited on and for how long.
+ */
+public class TraceEvent {
+
+    private final String threadName;
+    private final int cacheId;
+    private final long startNanos;
+    private final long durationNanos;
+    private final ThreadDetail.ReadFrom readFrom;
+    private final ThreadDetail.LockType lockType;
+
+    public TraceEvent(String threadName, int cacheId, long startNanos, long durationNanos,
+                      ThreadDetail.ReadFrom readFrom, ThreadDetail.LockType lockType) {
+        this.threadName = threadName;
+        this.cacheId = cacheId;
+        this.startNanos = startNanos;
+        this.durationNanos = durationNanos;
+        this.readFrom = readFrom;
+        this.lockType = lockType;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    public int getCacheId() {
+        return cacheId;
+    }
+
+    /** The {@link System#nanoTime()} at which the event started. */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public ThreadDetail.ReadFrom getReadFrom() {
+        return readFrom;
+    }
+
+    public ThreadDetail.LockType getLockType() {
+        return lockType;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", TraceEvent.class.getSimpleName() + "[", "]")
+                .add("threadName=" + threadName)
+                .add("cacheId=" + cacheId)
+                .add("startNanos=" + startNanos)
+                .add("durationNanos=" + durationNanos)
+                .add("readFrom=" + readFrom)
+                .add("lockType=" + lockType)
+                .toString();
+    }
+}
@@ -0,0 +1,79 @@
+package com.scb.java.interview.test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads from code compiled for Java 11. On Java 21 and later the
+ * multi-release jar replaces this class with one that calls the API directly; this version finds
+ * it reflectively so the cache also works when run from plain classes.
+ */
+public final class VirtualThreads {
+
+    private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findExecutorFactory();
+    private static final ThreadFactory VIRTUAL_THREAD_FACTORY = findThreadFactory();
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null && VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    /**
+     * Returns an executor that starts a new virtual thread for each task. Unlike an executor
+     * service it has no lifecycle, so there is nothing to shut down.
+     *
+     * @throws UnsupportedOperationException when the running JDK has no virtual threads
+     */
+    public static Executor newVirtualThreadExecutor() {
+        if (!isSupported())
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later");
+        return task -> VIRTUAL_THREAD_FACTORY.newThread(task).start();
+    }
+
+    /**
+     * Returns an executor that starts a new virtual thread for each task.
+     *
+     * @throws UnsupportedOperationException when the running JDK has no virtual threads
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!isSupported())
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later");
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle findExecutorFactory() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory findThreadFactory() {
+        try {
+            final var lookup = MethodHandles.publicLookup();
+            final var builderType = Class.forName("java.lang.Thread$Builder");
+            final var ofVirtual = lookup.findStatic(Thread.class, "ofVirtual",
+                    MethodType.methodType(Class.forName("java.lang.Thread$Builder$OfVirtual")));
+            final var factory = lookup.findVirtual(builderType, "factory", MethodType.methodType(ThreadFactory.class));
+            return (ThreadFactory) factory.invoke(ofVirtual.invoke());
+        } catch (Throwable e) {
+            // A missing class or method, or a preview API that is not enabled: no virtual threads here.
+            return null;
+        }
+    }
+}
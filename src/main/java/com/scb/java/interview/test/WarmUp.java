@@ -0,0 +1,159 @@
+package com.scb.java.interview.test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A running warm-up of a cache. A coordinating thread reads the keys, groups them into batches,
+ * paces them to the rate limit and hands them to the executor, never running more batches at once
+ * than the parallelism allows. Batches load through the cache's normal read path, so they share
+ * loads with concurrent readers and the cache keeps serving hits meanwhile. A failed batch is
+ * counted and the warm-up carries on.
+ */
+public class WarmUp<K> {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final Iterator<? extends K> keys;
+    private final long total;
+    private final int batchSize;
+    private final Consumer<List<K>> loader;
+    private final WarmUpOptions<K> options;
+    private final int parallelism;
+    private final Semaphore running;
+    private final AtomicLong loaded;
+    private final AtomicLong failed;
+    private final CompletableFuture<WarmUp<K>> completion;
+    private final Thread coordinator;
+    private volatile boolean cancelled;
+
+    private WarmUp(Iterator<? extends K> keys, long total, int batchSize, Consumer<List<K>> loader,
+                   WarmUpOptions<K> options) {
+        this.keys = keys;
+        this.total = total;
+        this.batchSize = batchSize;
+        this.loader = loader;
+        this.options = options;
+        this.parallelism = options.getParallelism();
+        this.running = new Semaphore(parallelism);
+        this.loaded = new AtomicLong();
+        this.failed = new AtomicLong();
+        this.completion = new CompletableFuture<>();
+        this.coordinator = new Thread(this::coordinate, "cache-warm-up-" + THREAD_COUNT.incrementAndGet());
+        coordinator.setDaemon(true);
+    }
+
+    /**
+     * @param total  the number of keys, or -1 when unknown
+     * @param loader loads a batch of keys into the cache
+     */
+    static <K> WarmUp<K> start(Iterator<? extends K> keys, long total, int batchSize, Consumer<List<K>> loader,
+                               WarmUpOptions<K> options) {
+        final var warmUp = new WarmUp<K>(keys, total, batchSize, loader, options);
+        warmUp.coordinator.start();
+        return warmUp;
+    }
+
+    /** Returns the number of keys loaded so far, including those that were already cached or absent. */
+    public long loaded() {
+        return loaded.get();
+    }
+
+    public long failed() {
+        return failed.get();
+    }
+
+    /** Returns the number of keys to warm up, or -1 when the keys came from a stream. */
+    public long total() {
+        return total;
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Stops handing out batches; batches already loading finish. */
+    public void cancel() {
+        cancelled = true;
+        coordinator.interrupt();
+    }
+
+    /** Completes, with this warm-up, once every batch handed out has finished. */
+    public CompletableFuture<WarmUp<K>> completion() {
+        return completion;
+    }
+
+    private void coordinate() {
+        final var nanosPerKey = Double.isInfinite(options.getKeysPerSecond())
+                ? 0L
+                : (long) (TimeUnit.SECONDS.toNanos(1) / options.getKeysPerSecond());
+        var nextStart = System.nanoTime();
+        try {
+            while (!cancelled && keys.hasNext()) {
+                final var batch = new ArrayList<K>(batchSize);
+                while (batch.size() < batchSize && keys.hasNext())
+                    batch.add(keys.next());
+                if (nanosPerKey > 0) {
+                    final var delay = nextStart - System.nanoTime();
+                    if (delay > 0)
+                        TimeUnit.NANOSECONDS.sleep(delay);
+                    nextStart = Math.max(nextStart, System.nanoTime()) + nanosPerKey * batch.size();
+                }
+                running.acquire();
+                if (cancelled) {
+                    running.release();
+                    break;
+                }
+                submit(batch);
+            }
+        } catch (InterruptedException e) {
+            // Cancelled.
+        } catch (RuntimeException e) {
+            // The key source failed; what was handed out still finishes.
+            completion.completeExceptionally(e);
+        } finally {
+            running.acquireUninterruptibly(parallelism);
+            running.release(parallelism);
+            try {
+                options.getProgressListener().accept(this);
+            } finally {
+                completion.complete(this);
+            }
+        }
+    }
+
+    private void submit(List<K> batch) {
+        try {
+            options.getExecutor().execute(() -> load(batch));
+        } catch (RejectedExecutionException e) {
+            load(batch);
+        }
+    }
+
+    private void load(List<K> batch) {
+        try {
+            loader.accept(batch);
+            loaded.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            failed.addAndGet(batch.size());
+        }
+        try {
+            options.getProgressListener().accept(this);
+        } finally {
+            // Released last, so the final progress report comes after every batch's.
+            running.release();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.scb.java.interview.test;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * How {@link CacheImpl#warmUp} and {@link CacheImpl#preload} load their keys: on which executor,
+ * how many loads at once, in batches of what size when the cache has a batch loader, and at most
+ * how many keys a second.
+ */
+public class WarmUpOptions<K> {
+
+    static final int DEFAULT_BATCH_SIZE = 100;
+
+    private Executor executor;
+    private int parallelism = (int) CacheBuilder.UNSET;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private double keysPerSecond = Double.POSITIVE_INFINITY;
+    private Consumer<? super WarmUp<K>> progressListener;
+
+    private WarmUpOptions() {
+    }
+
+    public static <K> WarmUpOptions<K> newOptions() {
+        return new WarmUpOptions<>();
+    }
+
+    public WarmUpOptions<K> executor(Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+        return this;
+    }
+
+    public WarmUpOptions<K> parallelism(int parallelism) {
+        CacheBuilder.requireArgument(parallelism > 0, "parallelism must be positive");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public WarmUpOptions<K> batchSize(int batchSize) {
+        CacheBuilder.requireArgument(batchSize > 0, "batchSize must be positive");
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public WarmUpOptions<K> rateLimit(double keysPerSecond) {
+        CacheBuilder.requireArgument(keysPerSecond > 0, "keysPerSecond must be positive");
+        this.keysPerSecond = keysPerSecond;
+        return this;
+    }
+
+    /** Called, on the thread that finished it, after each batch, and once more just before the warm-up completes. */
+    public WarmUpOptions<K> onProgress(Consumer<? super WarmUp<K>> progressListener) {
+        this.progressListener = Objects.requireNonNull(progressListener);
+        return this;
+    }
+
+    Executor getExecutor() {
+        return Objects.isNull(executor) ? ForkJoinPool.commonPool() : executor;
+    }
+
+    int getParallelism() {
+        if (parallelism != CacheBuilder.UNSET)
+            return parallelism;
+        return executor instanceof ForkJoinPool || Objects.isNull(executor)
+                ? ((ForkJoinPool) getExecutor()).getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    double getKeysPerSecond() {
+        return keysPerSecond;
+    }
+
+    Consumer<? super WarmUp<K>> getProgressListener() {
+        return Objects.isNull(progressListener) ? warmUp -> { } : progressListener;
+    }
+}
@@ -0,0 +1,248 @@
+package com.scb.java.interview.test;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A concurrent map that holds its keys weakly and compares them by identity. A collected key's
+ * mapping stays until {@link #expungeStaleEntries} removes it. Every lookup wraps the key in a
+ * small probe object, so unlike a plain {@link ConcurrentHashMap} lookup it allocates.
+ */
+final class WeakKeyMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+    private final ConcurrentMap<IdentityKey, V> delegate;
+    private final ReferenceQueue<K> queue;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    WeakKeyMap() {
+        this.delegate = new ConcurrentHashMap<>();
+        this.queue = new ReferenceQueue<>();
+    }
+
+    @Override
+    public V get(Object key) {
+        return Objects.isNull(key) ? null : delegate.get(new LookupKey(key));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return Objects.nonNull(key) && delegate.containsKey(new LookupKey(key));
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return delegate.put(new WeakKey<>(key, queue), value);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return delegate.putIfAbsent(new WeakKey<>(key, queue), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return Objects.isNull(key) ? null : delegate.remove(new LookupKey(key));
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        return Objects.nonNull(key) && delegate.remove(new LookupKey(key), value);
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        return delegate.replace(new LookupKey(key), oldValue, newValue);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        return delegate.replace(new LookupKey(key), value);
+    }
+
+    // An existing mapping keeps its reference, so the new one is only kept when the key was absent.
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return delegate.compute(new WeakKey<>(key, queue), (ignored, value) -> remappingFunction.apply(key, value));
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        return delegate.computeIfAbsent(new WeakKey<>(key, queue), ignored -> mappingFunction.apply(key));
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return delegate.computeIfPresent(new LookupKey(key), (ignored, value) -> remappingFunction.apply(key, value));
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (Objects.isNull(entrySet))
+            entrySet = new EntrySet();
+        return entrySet;
+    }
+
+    /**
+     * Removes up to the given number of mappings whose keys were collected, passing each removed
+     * value and its key's identity hash to the consumer, and returns how many were removed.
+     */
+    @SuppressWarnings("unchecked")
+    int expungeStaleEntries(int maximum, ObjIntConsumer<V> removed) {
+        var count = 0;
+        while (count < maximum) {
+            final var reference = (WeakKey<K>) queue.poll();
+            if (Objects.isNull(reference))
+                break;
+            final var value = delegate.remove(reference);
+            if (Objects.nonNull(value)) {
+                removed.accept(value, reference.hash);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private interface IdentityKey {
+
+        Object referent();
+
+        static boolean equals(IdentityKey key, Object other) {
+            if (key == other)
+                return true;
+            if (!(other instanceof IdentityKey))
+                return false;
+            final var referent = key.referent();
+            return Objects.nonNull(referent) && referent == ((IdentityKey) other).referent();
+        }
+    }
+
+    private static final class WeakKey<K> extends WeakReference<K> implements IdentityKey {
+
+        private final int hash;
+
+        WeakKey(K key, ReferenceQueue<K> queue) {
+            super(Objects.requireNonNull(key), queue);
+            this.hash = System.identityHashCode(key);
+        }
+
+        @Override
+        public Object referent() {
+            return get();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return IdentityKey.equals(this, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class LookupKey implements IdentityKey {
+
+        private final Object key;
+
+        LookupKey(Object key) {
+            this.key = Objects.requireNonNull(key);
+        }
+
+        @Override
+        public Object referent() {
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return IdentityKey.equals(this, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(key);
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+        }
+    }
+
+    /** Skips the mappings whose keys were collected but not yet expunged. */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        private final Iterator<Map.Entry<IdentityKey, V>> iterator = delegate.entrySet().iterator();
+        private Map.Entry<K, V> next;
+        private IdentityKey nextKey;
+        private IdentityKey lastKey;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext() {
+            while (Objects.isNull(next) && iterator.hasNext()) {
+                final var entry = iterator.next();
+                final var key = (K) entry.getKey().referent();
+                if (Objects.nonNull(key)) {
+                    next = new SimpleImmutableEntry<>(key, entry.getValue());
+                    nextKey = entry.getKey();
+                }
+            }
+            return Objects.nonNull(next);
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            final var entry = next;
+            lastKey = nextKey;
+            next = null;
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (Objects.isNull(lastKey))
+                throw new IllegalStateException();
+            delegate.remove(lastKey);
+            lastKey = null;
+        }
+    }
+}
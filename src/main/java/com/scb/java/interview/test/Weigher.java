@@ -0,0 +1,20 @@
+package com.scb.java.interview.test;
+
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+    int weigh(K key, V value);
+
+    static <K, V> Weigher<K, V> singleton() {
+        return (key, value) -> 1;
+    }
+
+    /**
+     * Weighs entries by their estimated size in bytes, as measured by {@link MemoryEstimator}, so
+     * that a maximum weight bounds the memory the cache retains.
+     */
+    static <K, V> Weigher<K, V> estimatedBytes() {
+        return (key, value) -> (int) Math.min(Integer.MAX_VALUE,
+                MemoryEstimator.CACHE_ENTRY + MemoryEstimator.estimate(key) + MemoryEstimator.estimate(value));
+    }
+}
@@ -0,0 +1,155 @@
+package com.scb.java.interview.test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Window TinyLFU: new keys enter a small LRU window, overflow into the probation segment of
+ * a segmented LRU, and are only kept over the probation victim when the frequency sketch has
+ * seen them more often. Keys hit while on probation are promoted to the protected segment.
+ * Each key owns one node for its whole life, so moving between segments never allocates.
+ */
+public class WindowTinyLfuPolicy<K> implements EvictionPolicy<K> {
+
+    private static final double WINDOW_PERCENT = 0.01;
+    private static final double PROTECTED_PERCENT = 0.80;
+    private static final long DEFAULT_MAXIMUM_SIZE = 1_024;
+
+    private static final class Node<K> {
+        private final K key;
+        private Queue<K> queue;
+        private Node<K> previous;
+        private Node<K> next;
+
+        private Node(K key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Queue<K> {
+        private final Node<K> head = new Node<>(null);
+        private int size;
+
+        private Queue() {
+            head.previous = head;
+            head.next = head;
+        }
+
+        private void addLast(Node<K> node) {
+            node.queue = this;
+            node.previous = head.previous;
+            node.next = head;
+            head.previous.next = node;
+            head.previous = node;
+            size++;
+        }
+
+        private void remove(Node<K> node) {
+            node.previous.next = node.next;
+            node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+            node.queue = null;
+            size--;
+        }
+
+        private void moveToLast(Node<K> node) {
+            remove(node);
+            addLast(node);
+        }
+
+        private Node<K> first() {
+            return head.next == head ? null : head.next;
+        }
+
+        private Node<K> last() {
+            return head.previous == head ? null : head.previous;
+        }
+    }
+
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private final Queue<K> window = new Queue<>();
+    private final Queue<K> probation = new Queue<>();
+    private final Queue<K> protectedSegment = new Queue<>();
+    private final FrequencySketch<K> sketch;
+
+    public WindowTinyLfuPolicy() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /** Creates a policy whose frequency sketch can grow to the given number of entries. */
+    public WindowTinyLfuPolicy(long maximumSize) {
+        this.sketch = new FrequencySketch<>(maximumSize);
+    }
+
+    @Override
+    public void recordInsert(K key) {
+        if (nodes.containsKey(key)) {
+            recordAccess(key);
+            return;
+        }
+        sketch.increment(key);
+        final var node = new Node<>(key);
+        nodes.put(key, node);
+        window.addLast(node);
+        sketch.ensureCapacity(nodes.size());
+        final var windowMaximum = Math.max(1, (int) (nodes.size() * WINDOW_PERCENT));
+        while (window.size > windowMaximum)
+            move(window.first(), probation);
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        sketch.increment(key);
+        final var node = nodes.get(key);
+        if (Objects.isNull(node))
+            return;
+        if (node.queue != probation) {
+            node.queue.moveToLast(node);
+            return;
+        }
+        move(node, protectedSegment);
+        final var protectedMaximum = Math.max(1, (int) ((probation.size + protectedSegment.size) * PROTECTED_PERCENT));
+        while (protectedSegment.size > protectedMaximum)
+            move(protectedSegment.first(), probation);
+    }
+
+    @Override
+    public void recordRemoval(K key) {
+        final var node = nodes.remove(key);
+        if (Objects.nonNull(node))
+            node.queue.remove(node);
+    }
+
+    @Override
+    public K evict() {
+        Node<K> evicted;
+        if (probation.size == 0) {
+            evicted = protectedSegment.size > 0 ? protectedSegment.first() : window.first();
+        } else {
+            final var victim = probation.first();
+            final var candidate = probation.last();
+            evicted = candidate != victim && sketch.frequency(candidate.key) > sketch.frequency(victim.key)
+                    ? victim
+                    : candidate;
+        }
+        if (Objects.isNull(evicted))
+            return null;
+        recordRemoval(evicted.key);
+        return evicted.key;
+    }
+
+    public int frequency(K key) {
+        return sketch.frequency(key);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    private static <K> void move(Node<K> node, Queue<K> target) {
+        node.queue.remove(node);
+        target.addLast(node);
+    }
+}
@@ -0,0 +1,316 @@
+package com.scb.java.interview.test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers a cache's writes and deletes for a {@link CacheWriter}. Changes to a key that is still
+ * waiting replace the waiting change, so a hot key is written once per flush however often it
+ * changes. A background thread flushes a batch once enough keys are waiting or the oldest has
+ * waited long enough. Writers wait while the buffer is full. Changes that are waiting or being
+ * written can be looked up, so the cache does not load a value the store has not received yet.
+ * When a batch fails its changes are retried one by one, so one bad key cannot hold back the
+ * others, and a change that fails the maximum number of attempts is dropped and handed to
+ * {@link CacheWriter#writeFailed}.
+ */
+public class WriteBehindQueue<K, V> {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final CacheWriter<K, V> writer;
+    private final int maximumBatchSize;
+    private final long maximumDelayNanos;
+    private final int maximumPending;
+    private final int maximumAttempts;
+    private final WeakReference<Object> owner;
+    private final ReentrantLock lock;
+    private final Condition notFull;
+    private final Condition flushNeeded;
+    private final Condition flushed;
+    private final LinkedHashMap<K, Write<V>> pending;
+    private final Map<K, Write<V>> writing;
+    private boolean flushRequested;
+    private long failures;
+    private long dropped;
+    private RuntimeException lastFailure;
+
+    WriteBehindQueue(CacheWriter<K, V> writer, int maximumBatchSize, long maximumDelayNanos, int maximumPending,
+                     int maximumAttempts, Object owner) {
+        this.writer = Objects.requireNonNull(writer);
+        this.maximumBatchSize = maximumBatchSize;
+        this.maximumDelayNanos = maximumDelayNanos;
+        this.maximumPending = maximumPending;
+        this.maximumAttempts = maximumAttempts;
+        this.owner = new WeakReference<>(owner);
+        this.lock = new ReentrantLock();
+        this.notFull = lock.newCondition();
+        this.flushNeeded = lock.newCondition();
+        this.flushed = lock.newCondition();
+        this.pending = new LinkedHashMap<>();
+        this.writing = new HashMap<>();
+    }
+
+    /** Starts the flushing thread, which stops once the owner is collected and nothing is left to write. */
+    static <K, V> WriteBehindQueue<K, V> start(CacheWriter<K, V> writer, int maximumBatchSize, long maximumDelayNanos,
+                                               int maximumPending, int maximumAttempts, Object owner) {
+        final var queue = new WriteBehindQueue<>(writer, maximumBatchSize, maximumDelayNanos, maximumPending,
+                maximumAttempts, owner);
+        final var flusher = new Thread(queue::flushLoop, "cache-write-behind-" + THREAD_COUNT.incrementAndGet());
+        flusher.setDaemon(true);
+        flusher.start();
+        return queue;
+    }
+
+    public void write(K key, V value) {
+        enqueue(key, new Write<>(value, System.nanoTime(), 0));
+    }
+
+    public void delete(K key) {
+        enqueue(key, new Write<>(null, System.nanoTime(), 0));
+    }
+
+    /** Returns the change of the key not yet in the store, or null when there is none. */
+    public Write<V> pendingWrite(K key) {
+        lock.lock();
+        try {
+            final var write = pending.get(key);
+            return Objects.nonNull(write) ? write : writing.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int pending() {
+        lock.lock();
+        try {
+            return pending.size() + writing.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long failures() {
+        lock.lock();
+        try {
+            return failures;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns how many changes were dropped after failing every attempt. */
+    public long dropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes out everything waiting and returns once nothing is left.
+     *
+     * @throws IllegalStateException when the writer fails meanwhile; the changes stay queued
+     */
+    public void flush() {
+        var interrupted = false;
+        lock.lock();
+        try {
+            final var failuresBefore = failures;
+            while (!pending.isEmpty() || !writing.isEmpty()) {
+                if (failures != failuresBefore)
+                    throw new IllegalStateException("Write-behind flush failed", lastFailure);
+                flushRequested = true;
+                flushNeeded.signal();
+                try {
+                    flushed.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(K key, Write<V> write) {
+        var interrupted = false;
+        lock.lock();
+        try {
+            final var waiting = pending.get(key);
+            if (Objects.nonNull(waiting)) {
+                // Coalesced; the key keeps its place, and the age of its first unwritten change.
+                pending.put(key, new Write<>(write.value, waiting.enqueuedAt, 0));
+                return;
+            }
+            while (pending.size() >= maximumPending) {
+                flushNeeded.signal();
+                try {
+                    notFull.await();
+                } catch (InterruptedException e) {
+                    // Dropping the change would lose it, so the wait carries on.
+                    interrupted = true;
+                }
+            }
+            pending.put(key, write);
+            if (pending.size() >= maximumBatchSize)
+                flushNeeded.signal();
+        } finally {
+            lock.unlock();
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            final var batch = new LinkedHashMap<K, Write<V>>();
+            lock.lock();
+            try {
+                if (!awaitBatch())
+                    return;
+                final var iterator = pending.entrySet().iterator();
+                while (iterator.hasNext() && batch.size() < maximumBatchSize) {
+                    final var change = iterator.next();
+                    iterator.remove();
+                    writing.put(change.getKey(), change.getValue());
+                    batch.put(change.getKey(), change.getValue());
+                }
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            write(batch);
+        }
+    }
+
+    /** Waits until a batch is due, returning false when the owner is gone and nothing is waiting. */
+    private boolean awaitBatch() {
+        while (true) {
+            if (pending.isEmpty()) {
+                flushRequested = false;
+                if (Objects.isNull(owner.get()))
+                    return false;
+            } else if (flushRequested || pending.size() >= maximumBatchSize) {
+                return true;
+            }
+            var waitNanos = TimeUnit.SECONDS.toNanos(1);
+            if (!pending.isEmpty()) {
+                final var oldest = pending.values().iterator().next();
+                waitNanos = maximumDelayNanos - (System.nanoTime() - oldest.enqueuedAt);
+                if (waitNanos <= 0)
+                    return true;
+            }
+            try {
+                flushNeeded.awaitNanos(waitNanos);
+            } catch (InterruptedException e) {
+                // The queue must be written out, so the flusher does not stop for an interrupt.
+            }
+        }
+    }
+
+    private void write(Map<K, Write<V>> batch) {
+        final var failed = new LinkedHashMap<K, RuntimeException>();
+        try {
+            writeAll(batch);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                failed.put(batch.keySet().iterator().next(), e);
+            } else {
+                // One bad key must not fail the others, so each change is retried on its own.
+                for (var change : batch.entrySet()) {
+                    try {
+                        writeAll(Map.of(change.getKey(), change.getValue()));
+                    } catch (RuntimeException cause) {
+                        failed.put(change.getKey(), cause);
+                    }
+                }
+            }
+        }
+        final var givenUp = new LinkedHashMap<K, Write<V>>();
+        var retrying = false;
+        lock.lock();
+        try {
+            for (var failure : failed.entrySet()) {
+                final var key = failure.getKey();
+                final var change = writing.get(key);
+                failures++;
+                lastFailure = failure.getValue();
+                if (change.attempts + 1 >= maximumAttempts) {
+                    givenUp.put(key, change);
+                    dropped++;
+                } else if (!pending.containsKey(key)) {
+                    // A change made since the batch was taken is newer, so it replaces the failed one.
+                    pending.put(key, new Write<>(change.value, change.enqueuedAt, change.attempts + 1));
+                    retrying = true;
+                }
+            }
+            writing.clear();
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (var change : givenUp.entrySet()) {
+            try {
+                writer.writeFailed(change.getKey(), change.getValue().value, failed.get(change.getKey()));
+            } catch (RuntimeException e) {
+                // The change is dropped either way.
+            }
+        }
+        if (retrying) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(maximumDelayNanos);
+            } catch (InterruptedException e) {
+                // Retried at once instead.
+            }
+        }
+    }
+
+    private void writeAll(Map<K, Write<V>> batch) {
+        final var writes = new LinkedHashMap<K, V>();
+        final var deletes = new ArrayList<K>();
+        for (var change : batch.entrySet()) {
+            if (change.getValue().isDelete())
+                deletes.add(change.getKey());
+            else
+                writes.put(change.getKey(), change.getValue().value);
+        }
+        if (!writes.isEmpty())
+            writer.writeAll(writes);
+        if (!deletes.isEmpty())
+            writer.deleteAll(deletes);
+    }
+
+    /** A change waiting to be written; a null value is a delete. */
+    public static final class Write<V> {
+
+        private final V value;
+        private final long enqueuedAt;
+        private final int attempts;
+
+        Write(V value, long enqueuedAt, int attempts) {
+            this.value = value;
+            this.enqueuedAt = enqueuedAt;
+            this.attempts = attempts;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public boolean isDelete() {
+            return Objects.isNull(value);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.scb.java.interview.test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads, compiled for Java 21 into the multi-release jar.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return true;
+    }
+
+    public static Executor newVirtualThreadExecutor() {
+        final var factory = Thread.ofVirtual().factory();
+        return task -> factory.newThread(task).start();
+    }
+
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -0,0 +1,105 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Async Cache Tests")
+class AsyncCacheImplTest {
+
+    @Test
+    @DisplayName("Concurrent callers share the in-flight future")
+    public void testInFlightFutureIsShared() throws InterruptedException, ExecutionException {
+        var loads = new AtomicInteger();
+        var pending = new CompletableFuture<String>();
+        AsyncCache<Integer, String> cache = new AsyncCacheImpl<>(key -> {
+            loads.incrementAndGet();
+            return pending;
+        });
+
+        var first = cache.get(1);
+        var second = cache.get(1);
+        assertThat(first, is(sameInstance(second)));
+        assertThat(first.isDone(), is(false));
+
+        pending.complete("One");
+        assertThat(cache.get(1).get(), is("One"));
+        assertThat(loads.get(), is(1));
+    }
+
+    @Test
+    @DisplayName("A future that fails after being cached is removed")
+    public void testFailedFutureIsRemoved() throws InterruptedException, ExecutionException {
+        var loads = new AtomicInteger();
+        var failing = new CompletableFuture<String>();
+        AsyncCache<Integer, String> cache = new AsyncCacheImpl<>(key ->
+                loads.incrementAndGet() == 1 ? failing : CompletableFuture.completedFuture("One"));
+
+        var first = cache.get(1);
+        failing.completeExceptionally(new IllegalStateException("backend down"));
+
+        assertThrows(ExecutionException.class, first::get);
+        assertThat(cache.get(1), is(not(sameInstance(first))));
+        assertThat(cache.get(1).get(), is("One"));
+        assertThat(loads.get(), is(2));
+    }
+
+    @Test
+    @DisplayName("Already failed, thrown and null results are not cached")
+    public void testImmediateFailuresAreNotCached() {
+        var loads = new AtomicInteger();
+        AsyncCache<Integer, String> cache = new AsyncCacheImpl<>(key -> {
+            switch (loads.incrementAndGet()) {
+                case 1:
+                    return CompletableFuture.failedFuture(new IllegalStateException("backend down"));
+                case 2:
+                    throw new IllegalStateException("backend down");
+                default:
+                    return CompletableFuture.completedFuture(null);
+            }
+        });
+
+        assertThat(cache.get(1).isCompletedExceptionally(), is(true));
+        assertThat(cache.get(1).isCompletedExceptionally(), is(true));
+        assertThat(cache.get(1).join(), is((String) null));
+        cache.get(1);
+        assertThat(loads.get(), is(4));
+    }
+
+    @Test
+    @DisplayName("Completed values are weighed once they arrive")
+    public void testWeighOnCompletion() {
+        var futures = new ConcurrentHashMap<Integer, CompletableFuture<String>>();
+        AsyncCacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .maximumWeight(10)
+                .weigher((Integer key, String value) -> value.length())
+                .evictionPolicy(LruPolicy::new)
+                .buildAsync(key -> {
+                    var future = new CompletableFuture<String>();
+                    futures.put(key, future);
+                    return future;
+                });
+
+        var evicted = cache.get(0);
+        cache.get(1);
+        cache.get(2);
+        assertThat(cache.estimatedSize(), is(3L));
+
+        futures.get(0).complete("x".repeat(6));
+        futures.get(1).complete("x".repeat(3));
+        futures.get(2).complete("x".repeat(3));
+        cache.cleanUp();
+        assertThat(cache.estimatedSize(), is(2L));
+        assertThat(cache.get(0), is(not(sameInstance(evicted))));
+    }
+}
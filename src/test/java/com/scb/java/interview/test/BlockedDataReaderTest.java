@@ -7,21 +7,18 @@ import org.junit.jupiter.api.Test;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CompletableFuture;
 
 @DisplayName("Blocked Data Reader Tests")
 class BlockedDataReaderTest {
 
-    private Map<String, String> map;
-    private BlockedDataReader<String> blockedDataReader;
+    private BlockedDataReader<String, String> blockedDataReader;
 
     @BeforeEach
     public void init() {
-        map = new HashMap<>();
         blockedDataReader = new BlockedDataReader<>();
     }
 
@@ -36,15 +33,15 @@ class BlockedDataReaderTest {
     @DisplayName("Test Adding Duplicate Elements")
     public void testAddingDuplicateElements() {
         prepareData();
-        ReadWriteLock newLock = new ReentrantReadWriteLock();
-        blockedDataReader.set("One", newLock);
-        assertThat(blockedDataReader.get("One"), not(newLock));
-
-        ReadWriteLock lockFour = new ReentrantReadWriteLock();
-        ReadWriteLock newLockFour = new ReentrantReadWriteLock();
-        blockedDataReader.set("Four", lockFour);
-        blockedDataReader.set("Four", newLockFour);
-        assertThat(blockedDataReader.get("Four"), is(lockFour));
+        CompletableFuture<String> newFuture = new CompletableFuture<>();
+        blockedDataReader.set("One", newFuture);
+        assertThat(blockedDataReader.get("One"), not(newFuture));
+
+        CompletableFuture<String> futureFour = new CompletableFuture<>();
+        CompletableFuture<String> newFutureFour = new CompletableFuture<>();
+        blockedDataReader.set("Four", futureFour);
+        assertThat(blockedDataReader.set("Four", newFutureFour), is(futureFour));
+        assertThat(blockedDataReader.get("Four"), is(futureFour));
     }
 
     @Test
@@ -61,13 +58,45 @@ class BlockedDataReaderTest {
         assertThat(blockedDataReader.contains("Five"), is(false));
     }
 
+    @Test
+    @DisplayName("Test Remove only clears the registered future")
+    public void testRemove() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        blockedDataReader.set("One", future);
+
+        assertThat(blockedDataReader.remove("One", new CompletableFuture<>()), is(false));
+        assertThat(blockedDataReader.contains("One"), is(true));
+        assertThat(blockedDataReader.remove("One", future), is(true));
+        assertThat(blockedDataReader.contains("One"), is(false));
+    }
+
+    @Test
+    @DisplayName("Test weak keys are compared by identity and released once collected")
+    public void testWeakKeys() throws InterruptedException {
+        var weakReader = new BlockedDataReader<String, String>(true);
+        var key = new String("One");
+        weakReader.set(key, new CompletableFuture<>());
+        assertThat(weakReader.contains(key), is(true));
+        assertThat(weakReader.contains(new String("One")), is(false));
+
+        var reference = new WeakReference<>(key);
+        key = null;
+        for (var i = 0; i < 100 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assumeTrue(reference.get() == null, "the key was not collected");
+        for (var i = 0; i < 100 && weakReader.size() > 0; i++) {
+            weakReader.expungeStaleKeys(16);
+            Thread.sleep(10);
+        }
+        assertThat(weakReader.size(), is(0));
+    }
+
     private void prepareData() {
-        ReadWriteLock lockOne = new ReentrantReadWriteLock();
-        ReadWriteLock lockTwo = new ReentrantReadWriteLock();
-        ReadWriteLock lockThree = new ReentrantReadWriteLock();
-        blockedDataReader.set("One", lockOne);
-        blockedDataReader.set("Two", lockTwo);
-        blockedDataReader.set("Three", lockThree);
+        blockedDataReader.set("One", new CompletableFuture<>());
+        blockedDataReader.set("Two", new CompletableFuture<>());
+        blockedDataReader.set("Three", new CompletableFuture<>());
     }
 
-}
\ No newline at end of file
+}
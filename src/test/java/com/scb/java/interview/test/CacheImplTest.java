@@ -4,18 +4,29 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -305,4 +316,1083 @@ class CacheImplTest {
         assertThat(result.values().stream().filter(cacheRead).count(), is(expectedResult));
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Test a cold-start stampede on one key invokes the DataService only once")
+    public void testColdStartStampedeSingleLoad() throws InterruptedException, ExecutionException {
+        var numberOfThreads = 64;
+        var service = Executors.newFixedThreadPool(numberOfThreads);
+        var start = new CountDownLatch(1);
+        var loads = new AtomicInteger();
+        Cache<Integer, String> cache = new CacheImpl<>(key -> {
+            loads.incrementAndGet();
+            ThreadDetailService.induceSleep(200, true);
+            return "Value" + key;
+        });
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (var i = 0; i < numberOfThreads; i++) {
+            futures.add(service.submit(() -> {
+                start.await();
+                return cache.get(7);
+            }));
+        }
+        start.countDown();
+        for (Future<String> future : futures) {
+            assertThat(future.get(), is("Value7"));
+        }
+        service.shutdown();
+
+        assertThat(loads.get(), is(1));
+    }
+
+    @Test
+    @DisplayName("Test a failed load is propagated to waiters and retried on the next call")
+    public void testFailedLoadIsNotCached() {
+        var loads = new AtomicInteger();
+        Cache<Integer, String> cache = new CacheImpl<>(key -> {
+            if (loads.incrementAndGet() == 1)
+                throw new IllegalStateException("backend down");
+            return "Value" + key;
+        });
+
+        assertThrows(IllegalStateException.class, () -> cache.get(1));
+        assertThat(cache.get(1), is("Value1"));
+        assertThat(loads.get(), is(2));
+    }
+
+    @Test
+    @DisplayName("Test a size bounded cache evicts the least recently used key")
+    public void testMaximumSizeEvictsLeastRecentlyUsed() {
+        var loads = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .maximumSize(2)
+                .evictionPolicy(LruPolicy::new)
+                .build(key -> {
+                    loads.incrementAndGet();
+                    return "Value" + key;
+                });
+
+        cache.get(1);
+        cache.get(2);
+        cache.get(1);
+        cache.get(3);
+        cache.cleanUp();
+
+        assertThat(cache.estimatedSize(), is(2L));
+        assertThat(loads.get(), is(3));
+        assertThat(cache.get(1), is("Value1"));
+        assertThat(loads.get(), is(3));
+        assertThat(cache.get(2), is("Value2"));
+        assertThat(loads.get(), is(4));
+    }
+
+    @Test
+    @DisplayName("Test a weight bounded cache stays under its maximum weight")
+    public void testMaximumWeight() {
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .maximumWeight(10)
+                .weigher((Integer key, String value) -> value.length())
+                .build(key -> "x".repeat(key));
+
+        cache.get(4);
+        cache.get(3);
+        cache.get(5);
+        cache.cleanUp();
+
+        assertThat(cache.estimatedSize(), is(2L));
+    }
+
+    @Test
+    @DisplayName("Test the bounded cache never exceeds its maximum size under concurrent loads")
+    public void testMaximumSizeUnderConcurrency() throws InterruptedException {
+        var numberOfThreads = 8;
+        var service = Executors.newFixedThreadPool(numberOfThreads);
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .maximumSize(100)
+                .build(key -> "Value" + key);
+
+        for (var i = 0; i < numberOfThreads; i++) {
+            var seed = i;
+            service.submit(() -> {
+                var random = new Random(seed);
+                for (var j = 0; j < 10_000; j++)
+                    cache.get(random.nextInt(1_000));
+            });
+        }
+        service.shutdown();
+        assertTrue(service.awaitTermination(1, TimeUnit.MINUTES));
+        cache.cleanUp();
+
+        assertThat(cache.estimatedSize() <= 100, is(true));
+    }
+
+    @Test
+    @DisplayName("Test conflicting bounds are rejected")
+    public void testConflictingBounds() {
+        assertThrows(IllegalStateException.class, () -> CacheBuilder.newBuilder().maximumSize(1).maximumWeight(1));
+        assertThrows(IllegalStateException.class, () -> CacheBuilder.newBuilder().maximumWeight(1).build(key -> key));
+        assertThrows(IllegalArgumentException.class, () -> CacheBuilder.newBuilder().maximumSize(-1));
+    }
+
+    @Test
+    @DisplayName("Test entries are reloaded once expired after write")
+    public void testExpireAfterWrite() {
+        var time = new AtomicLong();
+        var loads = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .ticker(time::get)
+                .build(key -> "Value" + key + "-" + loads.incrementAndGet());
+
+        assertThat(cache.get(1), is("Value1-1"));
+        time.addAndGet(Duration.ofSeconds(59).toNanos());
+        assertThat(cache.get(1), is("Value1-1"));
+        time.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(cache.get(1), is("Value1-2"));
+    }
+
+    @Test
+    @DisplayName("Test reads keep an entry alive when expiring after access")
+    public void testExpireAfterAccess() {
+        var time = new AtomicLong();
+        var loads = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(1))
+                .ticker(time::get)
+                .build(key -> "Value" + key + "-" + loads.incrementAndGet());
+
+        cache.get(1);
+        for (var i = 0; i < 5; i++) {
+            time.addAndGet(Duration.ofSeconds(30).toNanos());
+            assertThat(cache.get(1), is("Value1-1"));
+        }
+        time.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertThat(cache.get(1), is("Value1-2"));
+    }
+
+    @Test
+    @DisplayName("Test the timer wheel removes expired entries without a read")
+    public void testExpiredEntriesAreSwept() {
+        var time = new AtomicLong();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(10))
+                .ticker(time::get)
+                .build(key -> "Value" + key);
+
+        for (var key = 0; key < 1_000; key++)
+            cache.get(key);
+        assertThat(cache.estimatedSize(), is(1_000L));
+
+        time.addAndGet(Duration.ofSeconds(15).toNanos());
+        cache.cleanUp();
+        assertThat(cache.estimatedSize(), is(0L));
+    }
+
+    @Test
+    @DisplayName("Test a hit past the refresh threshold returns the old value and reloads asynchronously")
+    public void testRefreshAfterWrite() {
+        var time = new AtomicLong();
+        var loads = new AtomicInteger();
+        var pending = new ArrayList<Runnable>();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .refreshAfterWrite(Duration.ofMinutes(1))
+                .ticker(time::get)
+                .executor(pending::add)
+                .build(key -> "Value" + key + "-" + loads.incrementAndGet());
+
+        assertThat(cache.get(1), is("Value1-1"));
+        time.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertThat(cache.get(1), is("Value1-1"));
+        assertThat(cache.get(1), is("Value1-1"));
+        assertThat(pending.size(), is(1));
+
+        pending.forEach(Runnable::run);
+        assertThat(cache.get(1), is("Value1-2"));
+        assertThat(loads.get(), is(2));
+    }
+
+    @Test
+    @DisplayName("Test a failed refresh keeps serving the current value")
+    public void testFailedRefreshKeepsValue() {
+        var time = new AtomicLong();
+        var loads = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .refreshAfterWrite(Duration.ofMinutes(1))
+                .ticker(time::get)
+                .executor(Runnable::run)
+                .build(key -> {
+                    if (loads.incrementAndGet() > 1)
+                        throw new IllegalStateException("backend down");
+                    return "Value" + key;
+                });
+
+        cache.get(1);
+        time.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertThat(cache.get(1), is("Value1"));
+        assertThat(cache.get(1), is("Value1"));
+        assertThat(loads.get(), is(3));
+    }
+
+    @Test
+    @DisplayName("Test getAll returns cached keys and loads all missing keys in one batch")
+    public void testGetAllBatchesMisses() {
+        var batches = new ArrayList<Set<Integer>>();
+        var dataService = new DataService<>(dataMap);
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .batchLoader((Set<Integer> keys) -> {
+                    batches.add(Set.copyOf(keys));
+                    return dataService.applyAll(keys);
+                })
+                .build(dataService);
+
+        assertThat(cache.getAll(List.of(1, 2)), is(Map.of(1, "One", 2, "Two")));
+        var result = cache.getAll(List.of(4, 1, 3, 5, 2));
+
+        assertThat(new ArrayList<>(result.keySet()), is(List.of(4, 1, 3, 2)));
+        assertThat(result.get(3), is("Three"));
+        assertThat(batches, is(List.of(Set.of(1, 2), Set.of(3, 4, 5))));
+    }
+
+    @Test
+    @DisplayName("Test getAll joins keys another thread is already loading")
+    public void testGetAllJoinsInFlightLoads() throws InterruptedException, ExecutionException {
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var batches = new ArrayList<Set<Integer>>();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .batchLoader((Set<Integer> keys) -> {
+                    batches.add(Set.copyOf(keys));
+                    var values = new HashMap<Integer, String>();
+                    keys.forEach(key -> values.put(key, "Value" + key));
+                    return values;
+                })
+                .build(key -> {
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "Value" + key;
+                });
+
+        var service = Executors.newSingleThreadExecutor();
+        var single = service.submit(() -> cache.get(1));
+        loading.await();
+        var bulk = Executors.newSingleThreadExecutor().submit(() -> cache.getAll(List.of(1, 2, 3)));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThat(single.get(), is("Value1"));
+        assertThat(bulk.get(), is(Map.of(1, "Value1", 2, "Value2", 3, "Value3")));
+        assertThat(batches, is(List.of(Set.of(2, 3))));
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test getAll falls back to single loads without a batch loader")
+    public void testGetAllWithoutBatchLoader() {
+        assertThat(dataCache.getAll(List.of(1, 5, 2)), is(Map.of(1, "One", 2, "Two")));
+    }
+
+    @Test
+    @DisplayName("Test absent keys are served from the negative cache until its time to live passes")
+    public void testNegativeCaching() {
+        var time = new AtomicLong();
+        var loads = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .negativeCaching(Duration.ofSeconds(30), 1_000)
+                .ticker(time::get)
+                .build(key -> {
+                    loads.incrementAndGet();
+                    return dataMap.get(key);
+                });
+
+        assertNull(cache.get(5));
+        assertNull(cache.get(5));
+        assertThat(cache.getAll(List.of(1, 5)), is(Map.of(1, "One")));
+        assertThat(loads.get(), is(2));
+
+        time.addAndGet(Duration.ofSeconds(31).toNanos());
+        dataMap.put(5, "Five");
+        assertThat(cache.get(5), is("Five"));
+        assertThat(loads.get(), is(3));
+    }
+
+    @Test
+    @DisplayName("Test the segment count follows the concurrency level and the bound")
+    public void testSegmentCount() {
+        assertThat(CacheBuilder.newBuilder().concurrencyLevel(5).build(key -> key).segmentCount(), is(8));
+        assertThat(CacheBuilder.newBuilder().maximumSize(100).build(key -> key).segmentCount(), is(1));
+        assertThat(CacheBuilder.newBuilder().maximumSize(6).concurrencyLevel(16).build(key -> key).segmentCount(), is(4));
+        assertThrows(IllegalArgumentException.class, () -> CacheBuilder.newBuilder().concurrencyLevel(0));
+    }
+
+    @Test
+    @DisplayName("Test a segmented cache keeps its total size within the bound and loads each key once")
+    public void testSegmentedCache() throws Exception {
+        var loads = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .maximumSize(64)
+                .concurrencyLevel(8)
+                .build(key -> {
+                    loads.incrementAndGet();
+                    return "Value" + key;
+                });
+        assertThat(cache.segmentCount(), is(8));
+
+        var threads = 8;
+        var executor = Executors.newFixedThreadPool(threads);
+        try {
+            var futures = new ArrayList<Future<?>>();
+            for (var t = 0; t < threads; t++) {
+                final var offset = t * 1_000;
+                futures.add(executor.submit(() -> {
+                    for (var key = 0; key < 1_000; key++)
+                        assertThat(cache.get(offset + key), is("Value" + (offset + key)));
+                }));
+            }
+            for (var future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        cache.cleanUp();
+
+        assertThat(loads.get(), is(threads * 1_000));
+        assertThat(cache.estimatedSize() <= 64, is(true));
+    }
+
+    @Test
+    @DisplayName("Test entries evicted from the heap are promoted back from the off-heap tier")
+    public void testOffHeapTier() {
+        var loads = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .maximumSize(10)
+                .evictionPolicy(LruPolicy::new)
+                .offHeap(OffHeapStoreTest.STRINGS, 1 << 16)
+                .build(key -> {
+                    loads.incrementAndGet();
+                    return "Value" + key;
+                });
+
+        for (var key = 0; key < 100; key++)
+            cache.get(key);
+        assertThat(cache.estimatedSize(), is(10L));
+
+        for (var key = 0; key < 100; key++)
+            assertThat(cache.get(key), is("Value" + key));
+        assertThat(loads.get(), is(100));
+        assertThat(cache.getAll(List.of(0, 1, 2)), is(Map.of(0, "Value0", 1, "Value1", 2, "Value2")));
+        assertThat(loads.get(), is(100));
+
+        assertThrows(IllegalStateException.class,
+                () -> CacheBuilder.newBuilder().offHeap(OffHeapStoreTest.STRINGS, 1 << 16).build(key -> "Value" + key));
+    }
+
+    @Test
+    @DisplayName("Test expired entries are not promoted from the off-heap tier")
+    public void testOffHeapTierExpiry() {
+        var time = new AtomicLong();
+        var loads = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .maximumSize(1)
+                .evictionPolicy(LruPolicy::new)
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .ticker(time::get)
+                .offHeap(OffHeapStoreTest.STRINGS, 1 << 16)
+                .build(key -> {
+                    loads.incrementAndGet();
+                    return "Value" + key;
+                });
+
+        cache.get(1);
+        cache.get(2);
+        cache.cleanUp();
+        time.addAndGet(Duration.ofMinutes(2).toNanos());
+        cache.get(1);
+        assertThat(loads.get(), is(3));
+    }
+
+    @Test
+    @DisplayName("Test a cache restarted from a snapshot serves its entries without loading them")
+    public void testWarmRestart(@TempDir Path directory) throws Exception {
+        var file = directory.resolve("cache.snapshot");
+        var loads = new AtomicInteger();
+        Function<Integer, String> loader = key -> {
+            loads.incrementAndGet();
+            return "Value" + key;
+        };
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(Duration.ofHours(1))
+                .snapshot(file, CacheSnapshotTest.INTEGERS, OffHeapStoreTest.STRINGS)
+                .build(loader);
+        for (var key = 0; key < 100; key++)
+            cache.get(key);
+        cache.writeSnapshot();
+
+        CacheImpl<Integer, String> restarted = CacheBuilder.newBuilder()
+                .expireAfterWrite(Duration.ofHours(1))
+                .snapshot(file, CacheSnapshotTest.INTEGERS, OffHeapStoreTest.STRINGS)
+                .build(loader);
+        assertThat(restarted.estimatedSize(), is(0L));
+        for (var key = 0; key < 100; key++)
+            assertThat(restarted.get(key), is("Value" + key));
+        assertThat(loads.get(), is(100));
+        assertThat(restarted.get(100), is("Value100"));
+        assertThat(loads.get(), is(101));
+
+        assertThrows(IllegalStateException.class, () -> new CacheImpl<>(loader).writeSnapshot());
+    }
+
+    @Test
+    @DisplayName("Test misses are loaded on the loading executor and failures reach the caller")
+    public void testLoadingExecutor() {
+        var loaderThreads = ConcurrentHashMap.<String>newKeySet();
+        var executor = Executors.newFixedThreadPool(2, task -> new Thread(task, "loader"));
+        try {
+            CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                    .loadingExecutor(executor)
+                    .build(key -> {
+                        loaderThreads.add(Thread.currentThread().getName());
+                        if (key == 9)
+                            throw new IllegalStateException("Load failed");
+                        return "Value" + key;
+                    });
+
+            assertThat(cache.get(1), is("Value1"));
+            assertThat(cache.get(1), is("Value1"));
+            assertThrows(IllegalStateException.class, () -> cache.get(9));
+            assertThat(loaderThreads, is(Set.of("loader")));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test 100k concurrent cold misses complete on virtual threads")
+    public void testVirtualThreadLoading() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            assertThrows(UnsupportedOperationException.class, () -> CacheBuilder.newBuilder().virtualThreadLoading());
+            return;
+        }
+        var loads = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .virtualThreadLoading()
+                .build(key -> {
+                    loads.incrementAndGet();
+                    ThreadDetailService.induceSleep(10, true);
+                    return "Value" + key;
+                });
+
+        var keys = 100_000;
+        var threads = ManagementFactory.getThreadMXBean();
+        var platformThreads = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        var callers = VirtualThreads.newVirtualThreadPerTaskExecutor();
+        try {
+            var futures = new ArrayList<Future<String>>(keys);
+            for (var key = 0; key < keys; key++) {
+                final var requested = key;
+                futures.add(callers.submit(() -> cache.get(requested)));
+            }
+            for (var key = 0; key < keys; key++)
+                assertThat(futures.get(key).get(), is("Value" + key));
+        } finally {
+            callers.shutdown();
+        }
+        assertThat(loads.get(), is(keys));
+        // Parked callers and loads release their carriers, so only the carrier pool adds platform threads.
+        assertThat(threads.getPeakThreadCount() - platformThreads <= Runtime.getRuntime().availableProcessors() + 64, is(true));
+    }
+
+    @Test
+    @DisplayName("Test callers stop waiting for a hung load while it keeps running")
+    public void testLoadTimeout() throws Exception {
+        var loads = new AtomicInteger();
+        var loaderThread = new AtomicReference<String>();
+        var release = new CountDownLatch(1);
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .loadTimeout(Duration.ofMillis(100))
+                .build(key -> {
+                    loads.incrementAndGet();
+                    loaderThread.set(Thread.currentThread().getName());
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "Value" + key;
+                });
+
+        assertThrows(LoadTimeoutException.class, () -> cache.get(1));
+        assertThrows(LoadTimeoutException.class, () -> cache.get(1));
+        assertThat(loaderThread.get().startsWith("cache-loader-"), is(true));
+        release.countDown();
+        while (cache.estimatedSize() == 0)
+            Thread.sleep(10);
+        assertThat(cache.get(1), is("Value1"));
+        assertThat(loads.get(), is(1));
+    }
+
+    @Test
+    @DisplayName("Test loads beyond the concurrency limit are rejected")
+    public void testMaximumConcurrentLoads() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .maximumConcurrentLoads(1)
+                .build(key -> {
+                    if (key == 1) {
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return "Value" + key;
+                });
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var slow = executor.submit(() -> cache.get(1));
+            started.await();
+            assertThrows(RejectedExecutionException.class, () -> cache.get(2));
+            release.countDown();
+            assertThat(slow.get(), is("Value1"));
+            assertThat(cache.get(2), is("Value2"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test the failure backoff tracks a bounded number of keys")
+    public void testFailureBackoffBound() {
+        var backoff = new FailureBackoff<Integer>(TimeUnit.SECONDS.toNanos(1), TimeUnit.SECONDS.toNanos(10), Ticker.systemTicker());
+        var failure = new IllegalStateException("store unavailable");
+        for (var key = 0; key < FailureBackoff.MAXIMUM_TRACKED_KEYS + 100; key++)
+            backoff.recordFailure(key, failure);
+
+        assertThat(backoff.size(), is(FailureBackoff.MAXIMUM_TRACKED_KEYS));
+        assertThrows(IllegalStateException.class, () -> backoff.check(FailureBackoff.MAXIMUM_TRACKED_KEYS + 99));
+    }
+
+    @Test
+    @DisplayName("Test failed keys are retried only after an exponentially growing delay")
+    public void testFailureBackoff() {
+        var time = new AtomicLong();
+        var loads = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .failureBackoff(Duration.ofSeconds(1), Duration.ofSeconds(4))
+                .ticker(time::get)
+                .build(key -> {
+                    if (loads.incrementAndGet() <= 2)
+                        throw new IllegalStateException("Backend down");
+                    return "Value" + key;
+                });
+
+        assertThrows(IllegalStateException.class, () -> cache.get(1));
+        assertThrows(IllegalStateException.class, () -> cache.get(1));
+        assertThat(loads.get(), is(1));
+
+        time.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThrows(IllegalStateException.class, () -> cache.get(1));
+        assertThat(loads.get(), is(2));
+
+        time.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThrows(IllegalStateException.class, () -> cache.get(1));
+        assertThat(loads.get(), is(2));
+
+        time.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(cache.get(1), is("Value1"));
+        assertThat(cache.get(2), is("Value2"));
+        assertThat(loads.get(), is(4));
+    }
+
+    @Test
+    @DisplayName("Test batch loads honour the load timeout and the failure backoff")
+    public void testBatchLoadTimeoutAndBackoff() {
+        var time = new AtomicLong();
+        var batches = new AtomicInteger();
+        var hung = new AtomicBoolean(true);
+        var release = new CountDownLatch(1);
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .loadTimeout(Duration.ofMillis(100))
+                .failureBackoff(Duration.ofSeconds(1), Duration.ofSeconds(4))
+                .ticker(time::get)
+                .batchLoader((Set<Integer> keys) -> {
+                    batches.incrementAndGet();
+                    if (hung.get()) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    throw new IllegalStateException("Backend down");
+                })
+                .build(key -> "Value" + key);
+
+        var start = System.nanoTime();
+        assertThrows(LoadTimeoutException.class, () -> cache.getAll(List.of(1, 2)));
+        assertThat(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), is(true));
+        hung.set(false);
+        release.countDown();
+
+        assertThrows(IllegalStateException.class, () -> cache.getAll(List.of(3, 4)));
+        assertThat(batches.get(), is(2));
+        assertThrows(IllegalStateException.class, () -> cache.getAll(List.of(3, 4)));
+        assertThat(batches.get(), is(2));
+
+        time.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThrows(IllegalStateException.class, () -> cache.getAll(List.of(3, 4)));
+        assertThat(batches.get(), is(3));
+    }
+
+    @Test
+    @DisplayName("Test an expired value is served while reloading it fails, until the grace period ends")
+    public void testServeStaleOnError() {
+        var time = new AtomicLong();
+        var failing = new AtomicBoolean();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .serveStaleOnError(Duration.ofMinutes(10))
+                .ticker(time::get)
+                .build(key -> {
+                    if (failing.get())
+                        throw new IllegalStateException("Backend down");
+                    return "Value" + key;
+                });
+
+        assertThat(cache.get(1), is("Value1"));
+        failing.set(true);
+        time.addAndGet(Duration.ofMinutes(2).toNanos());
+        cache.cleanUp();
+        assertThat(cache.get(1), is("Value1"));
+
+        time.addAndGet(Duration.ofMinutes(10).toNanos());
+        cache.cleanUp();
+        assertThrows(IllegalStateException.class, () -> cache.get(1));
+        assertThrows(IllegalStateException.class,
+                () -> CacheBuilder.newBuilder().serveStaleOnError(Duration.ofMinutes(1)).build(key -> key));
+    }
+
+    @Test
+    @DisplayName("Test put, invalidate and bulk invalidation")
+    public void testInvalidation() {
+        var loads = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .maximumSize(100)
+                .build(key -> {
+                    loads.incrementAndGet();
+                    return "Value" + key;
+                });
+
+        cache.put(1, "Put");
+        assertThat(cache.get(1), is("Put"));
+        assertThat(loads.get(), is(0));
+
+        cache.invalidate(1);
+        assertThat(cache.get(1), is("Value1"));
+        assertThat(loads.get(), is(1));
+
+        for (var key = 0; key < 10; key++)
+            cache.get(key);
+        cache.invalidateAll(List.of(0, 1));
+        assertThat(cache.estimatedSize(), is(8L));
+        cache.invalidateIf(key -> key % 2 == 0);
+        assertThat(cache.estimatedSize(), is(4L));
+        cache.invalidateAll();
+        assertThat(cache.estimatedSize(), is(0L));
+        cache.cleanUp();
+    }
+
+    @Test
+    @DisplayName("Test a load in flight during an invalidation or put does not store its result")
+    public void testInvalidationDuringLoad() throws Exception {
+        var loads = new AtomicInteger();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .negativeCaching(Duration.ofMinutes(1), 100)
+                .build(key -> {
+                    var load = loads.incrementAndGet();
+                    if (load == 1 || load == 3) {
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return key == 2 ? null : "Value" + load;
+                });
+
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            var stale = executor.submit(() -> cache.get(1));
+            started.await();
+            cache.invalidate(1);
+            assertThat(cache.get(1), is("Value2"));
+            release.countDown();
+            assertThat(stale.get(), is("Value1"));
+            assertThat(cache.get(1), is("Value2"));
+
+            var absent = executor.submit(() -> cache.get(2));
+            while (loads.get() < 3)
+                Thread.sleep(10);
+            cache.put(2, "Put");
+            assertThat(absent.get(), is(nullValue()));
+            assertThat(cache.get(2), is("Put"));
+            cache.invalidate(2);
+            assertThat(cache.get(2), is(nullValue()));
+            assertThat(loads.get(), is(4));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test statistics count hits, misses, loads and evictions")
+    public void testStats() {
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .maximumSize(2)
+                .evictionPolicy(LruPolicy::new)
+                .recordStats()
+                .build(key -> {
+                    if (key == 9)
+                        throw new IllegalStateException("Load failed");
+                    return "Value" + key;
+                });
+
+        cache.get(1);
+        cache.get(1);
+        cache.get(2);
+        cache.get(3);
+        cache.cleanUp();
+        assertThrows(IllegalStateException.class, () -> cache.get(9));
+
+        var stats = cache.stats();
+        assertThat(stats.getHitCount(), is(1L));
+        assertThat(stats.getMissCount(), is(4L));
+        assertThat(stats.getLoadSuccessCount(), is(3L));
+        assertThat(stats.getLoadFailureCount(), is(1L));
+        assertThat(stats.getEvictionCount(), is(1L));
+        assertThat(stats.getLoadLatency().getTotalCount(), is(4L));
+        assertThat(stats.getHitRate(), is(0.2));
+    }
+
+    @Test
+    @DisplayName("Test statistics are empty unless recording is enabled")
+    public void testStatsDisabled() {
+        dataCache.get(1);
+        dataCache.get(1);
+        assertThat(((CacheImpl<Integer, String>) dataCache).stats().getRequestCount(), is(0L));
+    }
+
+    @Test
+    @DisplayName("Test cache hits do not allocate")
+    public void testHitPathDoesNotAllocate() {
+        var threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        var allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+
+        List<CacheImpl<Integer, String>> caches = List.of(
+                new CacheImpl<>(key -> "Value" + key),
+                CacheBuilder.newBuilder().maximumSize(100).build(key -> "Value" + key),
+                CacheBuilder.newBuilder().maximumSize(100).recordStats().build(key -> "Value" + key),
+                CacheBuilder.newBuilder().trackHotKeys(8, Duration.ofMinutes(1)).build(key -> "Value" + key),
+                CacheBuilder.newBuilder().traceEvents().build(key -> "Value" + key),
+                CacheBuilder.newBuilder().expireAfterAccess(Duration.ofHours(1)).build(key -> "Value" + key));
+        var keys = new Integer[64];
+        for (var i = 0; i < keys.length; i++)
+            keys[i] = 1_000 + i;
+
+        for (CacheImpl<Integer, String> cache : caches) {
+            for (var i = 0; i < 100_000; i++)
+                cache.get(keys[i & 63]);
+
+            var threadId = Thread.currentThread().getId();
+            var before = allocationBean.getThreadAllocatedBytes(threadId);
+            for (var i = 0; i < 100_000; i++)
+                cache.get(keys[i & 63]);
+            var allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+            assertThat(allocated < 10_000L, is(true));
+        }
+    }
+
+    @Test
+    @DisplayName("Test an entry heavier than a segment's share is kept while the cache has room")
+    public void testLargeEntryInSegmentedCache() {
+        CacheImpl<Integer, byte[]> cache = CacheBuilder.newBuilder()
+                .maximumWeight(32 * 1024 * 1024)
+                .concurrencyLevel(16)
+                .weigher(Weigher.estimatedBytes())
+                .build(key -> new byte[key]);
+        assertThat(cache.segmentCount(), is(16));
+
+        var large = cache.get(5 * 1024 * 1024);
+        cache.cleanUp();
+        assertThat(cache.estimatedSize(), is(1L));
+        assertThat(cache.getIfPresent(5 * 1024 * 1024), is(large));
+
+        for (var i = 0; i < 10_000; i++)
+            cache.get(4 * 1024 + i);
+        cache.cleanUp();
+        assertThat(cache.weightedSize() <= 32 * 1024 * 1024, is(true));
+    }
+
+    @Test
+    @DisplayName("Test a memory bounded cache evicts until its weighted size is within budget")
+    public void testMemoryBoundedSizing() {
+        CacheImpl<Integer, byte[]> cache = CacheBuilder.newBuilder()
+                .maximumWeight(64 * 1024)
+                .concurrencyLevel(1)
+                .weigher(Weigher.estimatedBytes())
+                .build(key -> new byte[key]);
+
+        cache.get(100);
+        var small = Weigher.<Integer, byte[]>estimatedBytes().weigh(100, new byte[100]);
+        assertThat(cache.weightedSize(), is((long) small));
+
+        for (var i = 1; i <= 40; i++)
+            cache.get(i * 1_000);
+        cache.cleanUp();
+        assertThat(cache.weightedSize() <= 64 * 1024, is(true));
+        assertThat(cache.weightedSize() > 0, is(true));
+
+        cache.invalidateAll();
+        assertThat(cache.weightedSize(), is(0L));
+    }
+
+    @Test
+    @DisplayName("Test the weighted size of an unbounded cache is its entry count")
+    public void testUnboundedWeightedSize() {
+        var cache = (CacheImpl<Integer, String>) dataCache;
+        cache.get(1);
+        cache.get(2);
+        assertThat(cache.weightedSize(), is(2L));
+    }
+
+    @Test
+    @DisplayName("Test hot keys, most missed keys and slowest loading keys are tracked")
+    public void testHotKeys() {
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .maximumSize(1)
+                .concurrencyLevel(1)
+                .trackHotKeys(2, Duration.ofMinutes(1))
+                .build(key -> {
+                    if (key == 3) {
+                        try {
+                            Thread.sleep(20);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return "Value" + key;
+                });
+
+        // Hits are sampled, so the counts are large enough for the ranking to be certain.
+        for (var i = 0; i < 5_000; i++)
+            cache.get(1);
+        for (var i = 0; i < 1_000; i++) {
+            cache.get(2);
+            cache.invalidate(2);
+        }
+        cache.get(3);
+        cache.getAll(List.of(1, 4));
+
+        assertThat(cache.hotKeys().get(0).getKey(), is(1));
+        var hits = cache.hotKeys().get(0).getCount();
+        assertThat(hits > 4_000L && hits < 6_000L, is(true));
+        assertThat(cache.hotKeys().get(1).getKey(), is(2));
+        assertThat(cache.topMissedKeys().get(0).getKey(), is(2));
+        assertThat(cache.topMissedKeys().get(0).getCount(), is(1_000L));
+        assertThat(cache.topLoadTimeKeys().get(0).getKey(), is(3));
+        assertThat(cache.topLoadTimeKeys().get(0).getCount() >= 20_000L, is(true));
+        assertThat(((CacheImpl<Integer, String>) dataCache).hotKeys().isEmpty(), is(true));
+    }
+
+    @Test
+    @DisplayName("Test write-through updates the store before the cache")
+    public void testWriteThrough() {
+        var store = new ConcurrentHashMap<>(dataMap);
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .writeThrough(new CacheWriter<Integer, String>() {
+                    @Override
+                    public void write(Integer key, String value) {
+                        if (value.isEmpty())
+                            throw new IllegalArgumentException("empty value");
+                        store.put(key, value);
+                    }
+
+                    @Override
+                    public void delete(Integer key) {
+                        store.remove(key);
+                    }
+                })
+                .build(store::get);
+
+        cache.put(1, "Uno");
+        assertThat(store.get(1), is("Uno"));
+        assertThat(cache.get(1), is("Uno"));
+        assertThrows(IllegalArgumentException.class, () -> cache.put(1, ""));
+        assertThat(cache.get(1), is("Uno"));
+
+        cache.delete(1);
+        assertThat(store.containsKey(1), is(false));
+        assertThat(cache.get(1), is(nullValue()));
+    }
+
+    @Test
+    @DisplayName("Test concurrent writes reach the store and the cache in the same order")
+    public void testWriteThroughOrder() throws InterruptedException {
+        var store = new ConcurrentHashMap<>(dataMap);
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .writeThrough(new CacheWriter<Integer, String>() {
+                    @Override
+                    public void write(Integer key, String value) {
+                        store.put(key, value);
+                        Thread.yield();
+                    }
+
+                    @Override
+                    public void delete(Integer key) {
+                        store.remove(key);
+                    }
+                })
+                .build(store::get);
+
+        var threads = new ArrayList<Thread>();
+        for (var t = 0; t < 4; t++) {
+            final var name = "writer" + t;
+            threads.add(new Thread(() -> {
+                for (var i = 0; i < 2_000; i++) {
+                    cache.put(1, name + "-" + i);
+                    if (i % 100 == 0)
+                        cache.delete(1);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (var thread : threads)
+            thread.join();
+
+        assertThat(cache.getIfPresent(1), is(store.get(1)));
+    }
+
+    @Test
+    @DisplayName("Test write-behind changes are read back before they reach the store")
+    public void testWriteBehind() {
+        var store = new ConcurrentHashMap<>(dataMap);
+        var writes = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .writeBehind(new CacheWriter<Integer, String>() {
+                    @Override
+                    public void write(Integer key, String value) {
+                        writes.incrementAndGet();
+                        store.put(key, value);
+                    }
+
+                    @Override
+                    public void delete(Integer key) {
+                        store.remove(key);
+                    }
+                }, 100, Duration.ofHours(1), 1_000)
+                .batchLoader(keys -> {
+                    var values = new HashMap<Integer, String>();
+                    keys.forEach(key -> values.put(key, store.get(key)));
+                    return values;
+                })
+                .build(store::get);
+
+        for (var i = 0; i < 100; i++)
+            cache.put(1, "Uno" + i);
+        cache.delete(2);
+        cache.invalidateAll();
+        assertThat(store.get(1), is("One"));
+        assertThat(cache.get(1), is("Uno99"));
+        assertThat(cache.get(2), is(nullValue()));
+        cache.invalidateAll();
+        assertThat(cache.getAll(List.of(1, 2, 3)), is(Map.of(1, "Uno99", 3, "Three")));
+
+        cache.flushWrites();
+        assertThat(store.get(1), is("Uno99"));
+        assertThat(store.containsKey(2), is(false));
+        assertThat(writes.get(), is(1));
+    }
+
+    @Test
+    @DisplayName("Test weakly held values are removed once collected and then loaded again")
+    public void testWeakValues() throws InterruptedException {
+        var loads = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .weakValues()
+                .recordStats()
+                .build(key -> {
+                    loads.incrementAndGet();
+                    return new String(dataMap.get(key));
+                });
+
+        var value = cache.get(1);
+        assertThat(cache.get(1), is("One"));
+        assertThat(loads.get(), is(1));
+
+        var reference = new WeakReference<>(value);
+        value = null;
+        awaitCollection(reference);
+        awaitCleanUp(cache);
+        assertThat(cache.estimatedSize(), is(0L));
+        assertThat(cache.stats().getEvictionCount(), is(1L));
+        assertThat(cache.get(1), is("One"));
+        assertThat(loads.get(), is(2));
+    }
+
+    @Test
+    @DisplayName("Test weak keys are compared by identity and removed once collected")
+    public void testWeakKeys() throws InterruptedException {
+        var loads = new AtomicInteger();
+        CacheImpl<String, String> cache = CacheBuilder.newBuilder()
+                .weakKeys()
+                .softValues()
+                .build(key -> {
+                    loads.incrementAndGet();
+                    return key.toUpperCase();
+                });
+
+        var key = new String("one");
+        assertThat(cache.get(key), is("ONE"));
+        assertThat(cache.get(key), is("ONE"));
+        assertThat(cache.get(new String("one")), is("ONE"));
+        assertThat(loads.get(), is(2));
+
+        var reference = new WeakReference<>(key);
+        key = null;
+        awaitCollection(reference);
+        awaitCleanUp(cache);
+        assertThat(cache.estimatedSize(), is(0L));
+        assertThrows(IllegalStateException.class, () -> CacheBuilder.newBuilder().weakKeys().maximumSize(10).build(dataService));
+    }
+
+    private static void awaitCollection(WeakReference<?> reference) throws InterruptedException {
+        for (var i = 0; i < 100 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assumeTrue(reference.get() == null, "the garbage collector did not clear the reference");
+    }
+
+    // A cleared reference reaches its queue shortly after the collection.
+    private static void awaitCleanUp(CacheImpl<?, ?> cache) throws InterruptedException {
+        for (var i = 0; i < 100 && cache.estimatedSize() > 0; i++) {
+            System.gc();
+            cache.cleanUp();
+            Thread.sleep(10);
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Cache Snapshot Tests")
+class CacheSnapshotTest {
+
+    static final Serializer<Integer> INTEGERS = new Serializer<>() {
+        @Override
+        public byte[] serialize(Integer value) {
+            return java.nio.ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+        }
+
+        @Override
+        public Integer deserialize(byte[] bytes) {
+            return java.nio.ByteBuffer.wrap(bytes).getInt();
+        }
+    };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Every written entry can be taken once")
+    public void testRoundTrip() throws IOException {
+        var file = directory.resolve("cache.snapshot");
+        var entries = new ArrayList<CacheSnapshot.Entry<Integer, String>>();
+        for (var key = 0; key < 1_000; key++)
+            entries.add(new CacheSnapshot.Entry<>(key, "Value" + key, 5L, CacheSnapshot.NEVER));
+        CacheSnapshot.write(file, entries, INTEGERS, OffHeapStoreTest.STRINGS);
+
+        try (var snapshot = CacheSnapshot.open(file, INTEGERS, OffHeapStoreTest.STRINGS)) {
+            assertThat(snapshot.remaining(), is(1_000));
+            assertThat(snapshot.take(1_000), is(nullValue()));
+            for (var key = 999; key >= 0; key--) {
+                var entry = snapshot.take(key);
+                assertThat(entry.getValue(), is("Value" + key));
+                assertThat(entry.getWrittenAt(), is(5L));
+            }
+            assertThat(snapshot.take(7), is(nullValue()));
+            assertThat(snapshot.remaining(), is(0));
+        }
+        assertThat(Files.exists(directory.resolve("cache.snapshot.tmp")), is(false));
+    }
+
+    @Test
+    @DisplayName("Keys whose hash code differs between processes are still found")
+    public void testProcessDependentHash() throws IOException {
+        var file = directory.resolve("cache.snapshot");
+        var entries = new ArrayList<CacheSnapshot.Entry<Name, String>>();
+        for (var key = 0; key < 100; key++)
+            entries.add(new CacheSnapshot.Entry<>(new Name("Key" + key), "Value" + key, 5L, CacheSnapshot.NEVER));
+        CacheSnapshot.write(file, entries, Name.SERIALIZER, OffHeapStoreTest.STRINGS);
+
+        try (var snapshot = CacheSnapshot.open(file, Name.SERIALIZER, OffHeapStoreTest.STRINGS)) {
+            for (var key = 0; key < 100; key++)
+                assertThat(snapshot.take(new Name("Key" + key)).getValue(), is("Value" + key));
+        }
+    }
+
+    @Test
+    @DisplayName("Entries that have expired by the time they are read are dropped")
+    public void testExpiredEntriesAreDropped() throws IOException {
+        var file = directory.resolve("cache.snapshot");
+        CacheSnapshot.write(file, List.of(
+                new CacheSnapshot.Entry<>(1, "One", 0L, 100L),
+                new CacheSnapshot.Entry<>(2, "Two", 0L, 200L)), INTEGERS, OffHeapStoreTest.STRINGS);
+
+        var wallClock = new AtomicLong(150);
+        var snapshot = CacheSnapshot.open(file, INTEGERS, OffHeapStoreTest.STRINGS, wallClock::get);
+        assertThat(snapshot.take(1), is(nullValue()));
+        assertThat(snapshot.take(2).getValue(), is("Two"));
+    }
+
+    @Test
+    @DisplayName("Removed entries can no longer be taken")
+    public void testRemove() throws IOException {
+        var file = directory.resolve("cache.snapshot");
+        var entries = new ArrayList<CacheSnapshot.Entry<Integer, String>>();
+        for (var key = 0; key < 100; key++)
+            entries.add(new CacheSnapshot.Entry<>(key, "Value" + key, 0L, CacheSnapshot.NEVER));
+        CacheSnapshot.write(file, entries, INTEGERS, OffHeapStoreTest.STRINGS);
+
+        var snapshot = CacheSnapshot.open(file, INTEGERS, OffHeapStoreTest.STRINGS);
+        assertThat(snapshot.remove(1), is(true));
+        assertThat(snapshot.remove(1), is(false));
+        snapshot.removeIf(key -> key % 2 == 0);
+        assertThat(snapshot.remaining(), is(49));
+        assertThat(snapshot.take(1), is(nullValue()));
+        assertThat(snapshot.take(2), is(nullValue()));
+        assertThat(snapshot.take(3).getValue(), is("Value3"));
+    }
+
+    @Test
+    @DisplayName("The snapshot is dropped once enough lookups in a row miss")
+    public void testDroppedAfterConsecutiveMisses() throws IOException {
+        var file = directory.resolve("cache.snapshot");
+        var entries = new ArrayList<CacheSnapshot.Entry<Integer, String>>();
+        for (var key = 0; key < 100; key++)
+            entries.add(new CacheSnapshot.Entry<>(key, "Value" + key, 0L, CacheSnapshot.NEVER));
+        CacheSnapshot.write(file, entries, INTEGERS, OffHeapStoreTest.STRINGS);
+
+        var snapshot = CacheSnapshot.open(file, INTEGERS, OffHeapStoreTest.STRINGS, System::currentTimeMillis, 10);
+        for (var key = 100; key < 109; key++)
+            assertThat(snapshot.take(key), is(nullValue()));
+        assertThat(snapshot.take(1).getValue(), is("Value1"));
+        for (var key = 100; key < 109; key++)
+            assertThat(snapshot.take(key), is(nullValue()));
+        assertThat(snapshot.remaining(), is(99));
+        assertThat(snapshot.take(109), is(nullValue()));
+        assertThat(snapshot.remaining(), is(0));
+        assertThat(snapshot.take(2), is(nullValue()));
+    }
+
+    @Test
+    @DisplayName("Concurrent takes hand each entry to exactly one caller")
+    public void testConcurrentTakes() throws Exception {
+        var file = directory.resolve("cache.snapshot");
+        var entries = new ArrayList<CacheSnapshot.Entry<Integer, String>>();
+        for (var key = 0; key < 10_000; key++)
+            entries.add(new CacheSnapshot.Entry<>(key, "Value" + key, 0L, CacheSnapshot.NEVER));
+        CacheSnapshot.write(file, entries, INTEGERS, OffHeapStoreTest.STRINGS);
+
+        var snapshot = CacheSnapshot.open(file, INTEGERS, OffHeapStoreTest.STRINGS);
+        var found = new AtomicInteger();
+        var threads = new ArrayList<Thread>();
+        for (var i = 0; i < 4; i++) {
+            var thread = new Thread(() -> {
+                for (var key = 0; key < 10_000; key++) {
+                    if (snapshot.take(key) != null)
+                        found.incrementAndGet();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (var thread : threads)
+            thread.join();
+        assertThat(found.get(), is(10_000));
+        assertThat(snapshot.remaining(), is(0));
+    }
+
+    @Test
+    @DisplayName("A file that is not a snapshot is rejected")
+    public void testRejectsForeignFile() throws IOException {
+        var file = Files.write(directory.resolve("cache.snapshot"), new byte[64]);
+        assertThrows(IOException.class, () -> CacheSnapshot.open(file, INTEGERS, OffHeapStoreTest.STRINGS));
+    }
+
+    /** A key with an identity hash code, as an enum has, so a fresh instance stands in for a restart. */
+    private static final class Name {
+
+        static final Serializer<Name> SERIALIZER = new Serializer<>() {
+            @Override
+            public byte[] serialize(Name value) {
+                return OffHeapStoreTest.STRINGS.serialize(value.name);
+            }
+
+            @Override
+            public Name deserialize(byte[] bytes) {
+                return new Name(OffHeapStoreTest.STRINGS.deserialize(bytes));
+            }
+        };
+
+        private final String name;
+
+        Name(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Name && name.equals(((Name) other).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+}
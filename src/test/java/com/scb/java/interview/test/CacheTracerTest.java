@@ -0,0 +1,165 @@
+package com.scb.java.interview.test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class CacheTracerTest {
+
+    @BeforeEach
+    public void init() {
+        CacheTracer.drain();
+    }
+
+    @Test
+    @DisplayName("Test hits, waits and loads are traced with their cache and thread")
+    public void testTraceEvents() throws InterruptedException {
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        CacheImpl<Integer, String> traced = CacheBuilder.newBuilder().traceEvents().build(key -> {
+            if (key == 2) {
+                loading.countDown();
+                await(release);
+            }
+            return "Value" + key;
+        });
+        CacheImpl<Integer, String> other = CacheBuilder.newBuilder().traceEvents().build(key -> "Other" + key);
+        CacheImpl<Integer, String> untraced = CacheBuilder.newBuilder().build(key -> "Value" + key);
+
+        traced.get(1);
+        traced.get(1);
+        other.get(1);
+        untraced.get(1);
+        var loader = new Thread(() -> traced.get(2), "trace-loader");
+        loader.start();
+        loading.await();
+        var waiter = new Thread(() -> traced.get(2), "trace-waiter");
+        waiter.start();
+        Thread.sleep(50);
+        release.countDown();
+        loader.join();
+        waiter.join();
+
+        var events = CacheTracer.drain();
+        var thisThread = CacheTracer.threadKey(Thread.currentThread());
+        assertThat(describe(events, traced.id(), thisThread), is(List.of("DATASERVICE/WRITE", "CACHE/NO_LOCK")));
+        assertThat(describe(events, other.id(), thisThread), is(List.of("DATASERVICE/WRITE")));
+        assertThat(describe(events, untraced.id(), thisThread).isEmpty(), is(true));
+        assertThat(describe(events, traced.id(), "trace-loader"), is(List.of("DATASERVICE/WRITE")));
+        assertThat(describe(events, traced.id(), "trace-waiter"), is(List.of("CACHE/READ")));
+        var wait = events.stream().filter(event -> event.getThreadName().equals("trace-waiter")).findFirst().get();
+        assertThat(wait.getDurationNanos() >= Duration.ofMillis(20).toNanos(), is(true));
+        assertThat(CacheTracer.drain().isEmpty(), is(true));
+    }
+
+    @Test
+    @DisplayName("Test a thread that outruns the drain overwrites its oldest events")
+    public void testOverwrite() {
+        var dropped = CacheTracer.droppedEvents();
+        for (var i = 0; i < CacheTracer.BUFFER_EVENTS + 10; i++)
+            CacheTracer.record(7, ThreadDetail.CACHE_NO_LOCK, i, 0);
+
+        var events = CacheTracer.drain();
+        assertThat(events.size(), is(CacheTracer.BUFFER_EVENTS));
+        assertThat(events.get(0).getStartNanos(), is(10L));
+        assertThat(CacheTracer.droppedEvents() - dropped, is(10L));
+    }
+
+    @Test
+    @DisplayName("Test events of unnamed threads are keyed by thread id")
+    public void testUnnamedThread() throws InterruptedException {
+        var thread = new Thread(() -> CacheTracer.record(8, ThreadDetail.CACHE_NO_LOCK, 0, 0), "");
+        thread.start();
+        thread.join();
+
+        assertThat(describe(CacheTracer.drain(), 8, "#" + thread.getId()), is(List.of("CACHE/NO_LOCK")));
+    }
+
+    @Test
+    @DisplayName("Test the buffers of ended threads are reused without a drain")
+    public void testReclaimWithoutDrain() throws InterruptedException {
+        for (var i = 0; i < 1_000; i++) {
+            var thread = new Thread(() -> CacheTracer.record(5, ThreadDetail.CACHE_NO_LOCK, 0, 0));
+            thread.start();
+            thread.join();
+        }
+        assertThat(CacheTracer.activeRings() <= 300, is(true));
+    }
+
+    @Test
+    @DisplayName("Test events written in binary form are read back")
+    public void testBinaryRoundTrip(@TempDir Path directory) throws IOException {
+        CacheTracer.record(3, ThreadDetail.DATASERVICE_WRITE, 100, 25);
+        var bytes = new ByteArrayOutputStream();
+        CacheTracer.writeTo(new DataOutputStream(bytes));
+
+        var events = CacheTracer.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertThat(events.size(), is(1));
+        assertThat(events.get(0).getCacheId(), is(3));
+        assertThat(events.get(0).getStartNanos(), is(100L));
+        assertThat(events.get(0).getDurationNanos(), is(25L));
+        assertThat(events.get(0).getLockType(), is(ThreadDetail.LockType.WRITE));
+
+        var file = directory.resolve("cache.trace");
+        var stream = CacheTracer.streamTo(file, Duration.ofMillis(10));
+        CacheTracer.record(4, ThreadDetail.CACHE_READ, 200, 5);
+        stream.close();
+        try (var in = new DataInputStream(Files.newInputStream(file))) {
+            assertThat(CacheTracer.read(in).get(0).getCacheId(), is(4));
+        }
+    }
+
+    @Test
+    @DisplayName("Test events are committed to an active flight recording")
+    public void testFlightRecorderEvents(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("cache.jfr");
+        try (var recording = new Recording()) {
+            recording.enable(CacheAccessEvent.class);
+            recording.start();
+            CacheTracer.record(5, ThreadDetail.DATASERVICE_WRITE, System.nanoTime(), 1_000);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        var events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("com.scb.cache.CacheAccess"))
+                .collect(Collectors.toList());
+        assertThat(events.size(), is(1));
+        assertThat(events.get(0).getInt("cacheId"), is(5));
+        assertThat(events.get(0).getString("readFrom"), is("DATASERVICE"));
+        assertThat(events.get(0).getLong("durationNanos"), is(1_000L));
+    }
+
+    private static List<String> describe(List<TraceEvent> events, int cacheId, String threadName) {
+        return events.stream()
+                .filter(event -> event.getCacheId() == cacheId && event.getThreadName().equals(threadName))
+                .map(event -> event.getReadFrom() + "/" + event.getLockType())
+                .collect(Collectors.toList());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.Reference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class ChangeFeedConsumerTest {
+
+    private ConcurrentMap<Integer, String> dataMap;
+    private ObservableDataService<Integer, String> source;
+
+    @BeforeEach
+    public void init() {
+        dataMap = new ConcurrentHashMap<>();
+        dataMap.put(1, "One");
+        dataMap.put(2, "Two");
+        source = new ObservableDataService<>(dataMap);
+    }
+
+    @Test
+    @DisplayName("Test a change at the source drops the cached entry")
+    public void testInvalidateOnChange() throws InterruptedException {
+        var loads = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .changeFeed(source, ChangeFeed.Action.INVALIDATE)
+                .build(key -> {
+                    loads.incrementAndGet();
+                    return dataMap.get(key);
+                });
+
+        assertThat(cache.get(1), is("One"));
+        assertThat(cache.get(2), is("Two"));
+        source.put(1, "Uno");
+
+        await(() -> Objects.isNull(cache.getIfPresent(1)));
+        assertThat(cache.getIfPresent(2), is("Two"));
+        assertThat(cache.get(1), is("Uno"));
+        assertThat(loads.get(), is(3));
+    }
+
+    @Test
+    @DisplayName("Test a change at the source reloads the cached entry and ignores uncached keys")
+    public void testRefreshOnChange() throws InterruptedException {
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .changeFeed(source, ChangeFeed.Action.REFRESH)
+                .build(dataMap::get);
+
+        assertThat(cache.get(1), is("One"));
+        source.put(1, "Uno");
+        source.put(3, "Tres");
+
+        await(() -> "Uno".equals(cache.getIfPresent(1)));
+        assertThat(cache.getIfPresent(3), is(nullValue()));
+        source.remove(1);
+        await(() -> Objects.isNull(cache.getIfPresent(1)));
+        assertThat(cache.get(1), is(nullValue()));
+    }
+
+    @Test
+    @DisplayName("Test a full change buffer makes the source wait")
+    public void testBackPressure() throws InterruptedException {
+        var reloading = new CountDownLatch(1);
+        var blocked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        CacheImpl<Integer, String> cache = new CacheImpl<>(key -> {
+            if (key == 1 && reloading.getCount() == 0) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "Value" + key;
+        });
+        cache.get(1);
+        reloading.countDown();
+        ChangeFeedConsumer.start(source, ChangeFeed.Action.REFRESH, cache, 2);
+
+        // Once the consumer is stuck reloading, only the buffer's two slots can take changes.
+        source.publish(1);
+        assertThat(blocked.await(5, TimeUnit.SECONDS), is(true));
+        var published = new AtomicInteger();
+        var publisher = new Thread(() -> {
+            for (var i = 0; i < 5; i++) {
+                source.publish(1);
+                published.incrementAndGet();
+            }
+        });
+        publisher.start();
+
+        publisher.join(300);
+        assertThat(publisher.isAlive(), is(true));
+        assertThat(published.get(), is(2));
+
+        release.countDown();
+        publisher.join(5_000);
+        assertThat(publisher.isAlive(), is(false));
+        assertThat(published.get(), is(5));
+        // The consumer only holds the cache weakly, so it must not be collected while the test runs.
+        Reference.reachabilityFence(cache);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() < deadline, is(true));
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+@DisplayName("Eviction Policy Tests")
+class EvictionPolicyTest {
+
+    @Test
+    @DisplayName("LRU evicts the least recently used key")
+    public void testLruOrder() {
+        EvictionPolicy<Integer> policy = new LruPolicy<>();
+        policy.recordInsert(1);
+        policy.recordInsert(2);
+        policy.recordInsert(3);
+        policy.recordAccess(1);
+
+        assertThat(policy.evict(), is(2));
+        assertThat(policy.evict(), is(3));
+        assertThat(policy.evict(), is(1));
+        assertThat(policy.evict(), is(nullValue()));
+    }
+
+    @Test
+    @DisplayName("LFU evicts the least frequently used key and the oldest among ties")
+    public void testLfuOrder() {
+        EvictionPolicy<Integer> policy = new LfuPolicy<>();
+        policy.recordInsert(1);
+        policy.recordInsert(2);
+        policy.recordInsert(3);
+        policy.recordAccess(1);
+        policy.recordAccess(1);
+        policy.recordAccess(3);
+
+        assertThat(policy.evict(), is(2));
+        assertThat(policy.evict(), is(3));
+        assertThat(policy.evict(), is(1));
+        assertThat(policy.evict(), is(nullValue()));
+    }
+
+    @Test
+    @DisplayName("Removed keys are never returned as victims")
+    public void testRemovalIsForgotten() {
+        for (EvictionPolicy<Integer> policy : Set.of(new LruPolicy<Integer>(), new LfuPolicy<Integer>(),
+                new WindowTinyLfuPolicy<Integer>())) {
+            policy.recordInsert(1);
+            policy.recordInsert(2);
+            policy.recordRemoval(1);
+
+            assertThat(policy.evict(), is(2));
+            assertThat(policy.evict(), is(nullValue()));
+        }
+    }
+
+    @Test
+    @DisplayName("W-TinyLFU keeps frequently used keys over a scan of one-hit keys")
+    public void testTinyLfuIsScanResistant() {
+        var capacity = 100;
+        var policy = new WindowTinyLfuPolicy<Integer>(capacity);
+        var resident = new HashSet<Integer>();
+        for (var key = 0; key < capacity; key++) {
+            policy.recordInsert(key);
+            resident.add(key);
+        }
+        for (var round = 0; round < 5; round++) {
+            for (var key = 0; key < capacity; key++)
+                policy.recordAccess(key);
+        }
+        for (var key = capacity; key < 10 * capacity; key++) {
+            policy.recordInsert(key);
+            resident.add(key);
+            resident.remove(policy.evict());
+        }
+
+        var survivors = resident.stream().filter(key -> key < capacity).count();
+        assertThat(survivors > capacity / 2, is(true));
+        assertThat(policy.size(), is(capacity));
+    }
+
+    @Test
+    @DisplayName("W-TinyLFU keeps its frequency history while the cache fills")
+    public void testTinyLfuHistorySurvivesFilling() {
+        var policy = new WindowTinyLfuPolicy<Integer>(10_000);
+        policy.recordInsert(0);
+        policy.recordAccess(0);
+        for (var key = 1; key < 10_000; key++)
+            policy.recordInsert(key);
+
+        assertThat(policy.frequency(0), is(2));
+    }
+
+    @Test
+    @DisplayName("A large bound does not allocate the frequency sketch up front")
+    public void testLargeBound() {
+        var sketch = new FrequencySketch<Integer>(50_000_000);
+        assertThat(sketch.capacity() <= 1 << 16, is(true));
+
+        for (var i = 0; i < 3; i++)
+            sketch.increment(7);
+        sketch.ensureCapacity(1 << 20);
+        assertThat(sketch.capacity(), is(1 << 20));
+        assertThat(sketch.frequency(7), is(3));
+
+        sketch.ensureCapacity(3_000_000);
+        assertThat(sketch.frequency(7), is(3));
+    }
+}
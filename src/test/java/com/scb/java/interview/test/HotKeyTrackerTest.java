@@ -0,0 +1,113 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class HotKeyTrackerTest {
+
+    private final AtomicLong time = new AtomicLong();
+    private final Ticker ticker = time::get;
+
+    @Test
+    @DisplayName("Test the most recorded keys are ranked first among many cold keys")
+    public void testTopKeys() {
+        var tracker = new HotKeyTracker<Integer>(3, 8192, TimeUnit.MINUTES.toNanos(1), ticker);
+        for (var round = 0; round < 200; round++) {
+            for (var key = 0; key < 1_000; key++)
+                tracker.record(key, 1);
+            for (var i = 0; i < 10; i++)
+                tracker.record(5_000, 1);
+            for (var i = 0; i < 5; i++)
+                tracker.record(6_000, 1);
+            for (var i = 0; i < 3; i++)
+                tracker.record(7_000, 1);
+        }
+
+        assertThat(keys(tracker), is(List.of(5_000, 6_000, 7_000)));
+        assertThat(tracker.estimate(5_000) >= 2_000, is(true));
+    }
+
+    @Test
+    @DisplayName("Test sampled hits estimate the true counts")
+    public void testSampledHits() {
+        var tracker = new HotKeyTracker<String>(2, 64, TimeUnit.MINUTES.toNanos(1), ticker);
+        for (var i = 0; i < 10_000; i++) {
+            tracker.recordHit("hot");
+            if (i % 10 == 0)
+                tracker.recordHit("warm");
+        }
+
+        assertThat(keys(tracker), is(List.of("hot", "warm")));
+        assertThat(tracker.estimate("hot") > 8_000 && tracker.estimate("hot") < 12_000, is(true));
+        assertThat(tracker.estimate("hot") % 16, is(0L));
+    }
+
+    @Test
+    @DisplayName("Test amounts other than one are summed")
+    public void testAmounts() {
+        var tracker = new HotKeyTracker<String>(2, 64, TimeUnit.MINUTES.toNanos(1), ticker);
+        tracker.record("slow", 5_000);
+        tracker.record("fast", 10);
+        tracker.record("fast", 10);
+        tracker.record("medium", 700);
+
+        assertThat(keys(tracker), is(List.of("slow", "medium")));
+        assertThat(tracker.estimate("slow"), is(5_000L));
+    }
+
+    @Test
+    @DisplayName("Test a hot key is re-ranked on one in sixteen recordings whatever the amount")
+    public void testRerankThrottling() {
+        for (var amount : new long[]{1, 16, 1_000}) {
+            var reranks = 0;
+            for (var estimate = 65 * amount; estimate <= 224 * amount; estimate += amount) {
+                if (HotKeyTracker.reranks(estimate, amount))
+                    reranks++;
+            }
+            assertThat(reranks, is(10));
+            assertThat(HotKeyTracker.reranks(63 * amount, amount), is(true));
+        }
+    }
+
+    @Test
+    @DisplayName("Test counts are halved every aging period so new hot keys overtake old ones")
+    public void testAging() {
+        var tracker = new HotKeyTracker<String>(1, 64, TimeUnit.SECONDS.toNanos(1), ticker);
+        for (var i = 0; i < 1_000; i++)
+            tracker.record("old", 1);
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        tracker.topKeys();
+        assertThat(tracker.estimate("old"), is(500L));
+
+        for (var period = 0; period < 4; period++) {
+            time.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            tracker.topKeys();
+        }
+        for (var i = 0; i < 100; i++)
+            tracker.record("new", 1);
+        assertThat(keys(tracker), is(List.of("new")));
+    }
+
+    @Test
+    @DisplayName("Test a disabled tracker records nothing")
+    public void testDisabled() {
+        HotKeyTracker<String> tracker = HotKeyTracker.disabled();
+        tracker.record("key", 1);
+        assertThat(tracker.isEnabled(), is(false));
+        assertThat(tracker.estimate("key"), is(0L));
+        assertThat(tracker.topKeys().isEmpty(), is(true));
+    }
+
+    private static <K> List<K> keys(HotKeyTracker<K> tracker) {
+        return tracker.topKeys().stream().map(HotKeyTracker.HotKey::getKey).collect(Collectors.toList());
+    }
+}
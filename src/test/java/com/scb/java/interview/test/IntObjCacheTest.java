@@ -0,0 +1,48 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@DisplayName("Int Keyed Cache Tests")
+class IntObjCacheTest {
+
+    @Test
+    @DisplayName("Values are loaded once and then served from the cache")
+    public void testLoadsOnce() {
+        var loads = new AtomicInteger();
+        var cache = new IntObjCache<String>(key -> {
+            loads.incrementAndGet();
+            return "Value" + key;
+        });
+
+        for (var round = 0; round < 3; round++) {
+            for (var key = -500; key < 500; key++)
+                assertThat(cache.get(key), is("Value" + key));
+        }
+        assertThat(cache.get(Integer.valueOf(7)), is("Value7"));
+        assertThat(loads.get(), is(1_000));
+
+        cache.invalidateIf(key -> key >= 0);
+        cache.invalidateIfKey(key -> key < -250);
+        assertThat(cache.size(), is(250));
+    }
+
+    @Test
+    @DisplayName("A bounded cache stays within its size and keeps keys that are read")
+    public void testBounded() {
+        var cache = new IntObjCache<String>(key -> "Value" + key, 100);
+
+        for (var key = 0; key < 10_000; key++) {
+            cache.get(key);
+            assertThat(cache.get(0), is("Value0"));
+            assertThat(cache.size() <= 100, is(true));
+        }
+        for (var key = 0; key < 10_000; key++)
+            assertThat(cache.get(key), is("Value" + key));
+    }
+}
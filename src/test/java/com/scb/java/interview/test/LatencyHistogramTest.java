@@ -0,0 +1,48 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+@DisplayName("Latency Histogram Tests")
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Every value maps to a bucket whose upper bound is within 3% of it")
+    public void testRelativeError() {
+        for (var value = 1L; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            final var index = LatencyHistogram.indexOf(value);
+            final var upper = LatencyHistogram.highestEquivalentValue(index);
+            assertThat(upper, is(greaterThanOrEqualTo(value)));
+            assertThat((double) (upper - value), is(lessThanOrEqualTo(value * 0.032)));
+        }
+        assertThat(LatencyHistogram.indexOf(Long.MAX_VALUE), is(LatencyHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    @DisplayName("Percentiles follow the recorded distribution")
+    public void testPercentiles() {
+        final var histogram = new LatencyHistogram();
+        for (var value = 1; value <= 1_000; value++)
+            histogram.record(value * 1_000L);
+
+        final var snapshot = histogram.snapshot();
+        assertThat(snapshot.getTotalCount(), is(1_000L));
+        assertThat(snapshot.getValueAtPercentile(50), is(allOf(greaterThanOrEqualTo(500_000L), lessThanOrEqualTo(516_000L))));
+        assertThat(snapshot.getValueAtPercentile(99), is(allOf(greaterThanOrEqualTo(990_000L), lessThanOrEqualTo(1_022_000L))));
+        assertThat(snapshot.getMaxValue(), is(allOf(greaterThanOrEqualTo(1_000_000L), lessThanOrEqualTo(1_032_000L))));
+    }
+
+    @Test
+    @DisplayName("An empty histogram reports zero")
+    public void testEmpty() {
+        final var snapshot = new LatencyHistogram().snapshot();
+        assertThat(snapshot.getTotalCount(), is(0L));
+        assertThat(snapshot.getValueAtPercentile(99), is(0L));
+    }
+}
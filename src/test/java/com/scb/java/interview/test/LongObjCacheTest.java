@@ -0,0 +1,191 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@DisplayName("Long Keyed Cache Tests")
+class LongObjCacheTest {
+
+    @Test
+    @DisplayName("Values are loaded once and then served from the cache")
+    public void testLoadsOnce() {
+        var loads = new AtomicInteger();
+        var cache = new LongObjCache<String>(key -> {
+            loads.incrementAndGet();
+            return "Value" + key;
+        });
+
+        for (var round = 0; round < 3; round++) {
+            for (var key = -500L; key < 500L; key++)
+                assertThat(cache.get(key), is("Value" + key));
+        }
+        assertThat(cache.get(Long.valueOf(7)), is("Value7"));
+        assertThat(loads.get(), is(1_000));
+        assertThat(cache.size(), is(1_000));
+    }
+
+    @Test
+    @DisplayName("Absent values are not cached")
+    public void testNullIsNotCached() {
+        var loads = new AtomicInteger();
+        var cache = new LongObjCache<String>(key -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        assertThat(cache.get(0L), is(nullValue()));
+        assertThat(cache.get(0L), is(nullValue()));
+        assertThat(loads.get(), is(2));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    @DisplayName("A bounded cache stays within its size and keeps keys that are read")
+    public void testBounded() {
+        var hotLoads = new AtomicInteger();
+        var cache = new LongObjCache<String>(key -> {
+            if (key == 0L)
+                hotLoads.incrementAndGet();
+            return "Value" + key;
+        }, 100);
+
+        for (var key = 0L; key < 10_000L; key++) {
+            cache.get(key);
+            assertThat(cache.get(0L), is("Value0"));
+            assertThat(cache.size() <= 100, is(true));
+        }
+        assertThat(hotLoads.get(), is(1));
+        for (var key = 0L; key < 10_000L; key++)
+            assertThat(cache.get(key), is("Value" + key));
+        assertThrows(IllegalArgumentException.class, () -> new LongObjCache<>(key -> key, 0));
+    }
+
+    @Test
+    @DisplayName("Put, invalidate and bulk invalidation")
+    public void testInvalidation() {
+        var loads = new AtomicInteger();
+        var cache = new LongObjCache<String>(key -> {
+            loads.incrementAndGet();
+            return "Value" + key;
+        });
+
+        cache.put(1L, "Put");
+        assertThat(cache.get(1L), is("Put"));
+        cache.invalidate(1L);
+        assertThat(cache.get(1L), is("Value1"));
+        assertThat(loads.get(), is(1));
+
+        for (var key = 0L; key < 1_000L; key++)
+            cache.get(key);
+        cache.invalidateIfKey(key -> key % 2 == 0);
+        assertThat(cache.size(), is(500));
+        for (var key = 1L; key < 1_000L; key += 2)
+            assertThat(cache.get(key), is("Value" + key));
+        assertThat(loads.get(), is(1_000));
+
+        cache.invalidateAll(java.util.List.of(1L, 3L));
+        assertThat(cache.size(), is(498));
+        cache.invalidateAll();
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    @DisplayName("A load in flight during an invalidation does not store its result")
+    public void testInvalidationDuringLoad() throws Exception {
+        var loads = new AtomicInteger();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var cache = new LongObjCache<String>(key -> {
+            var load = loads.incrementAndGet();
+            if (load == 1) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "Value" + load;
+        });
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var stale = executor.submit(() -> cache.get(1L));
+            started.await();
+            cache.invalidate(1L);
+            assertThat(cache.get(1L), is("Value2"));
+            release.countDown();
+            assertThat(stale.get(), is("Value1"));
+            assertThat(cache.get(1L), is("Value2"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent misses on one key share a single load")
+    public void testSingleFlight() throws Exception {
+        var loads = new AtomicInteger();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var cache = new LongObjCache<String>(key -> {
+            loads.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "Value" + key;
+        });
+
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var futures = new ArrayList<Future<String>>();
+            for (var i = 0; i < 8; i++)
+                futures.add(executor.submit(() -> cache.get(42L)));
+            started.await(5, TimeUnit.SECONDS);
+            release.countDown();
+            for (var future : futures)
+                assertThat(future.get(), is("Value42"));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads.get(), is(1));
+    }
+
+    @Test
+    @DisplayName("Hits do not allocate")
+    public void testHitPathDoesNotAllocate() {
+        var threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        var allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+
+        var cache = new LongObjCache<String>(key -> "Value" + key, 1_000);
+        for (var i = 0; i < 100_000; i++)
+            cache.get(1_000L + (i & 63));
+
+        var threadId = Thread.currentThread().getId();
+        var before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (var i = 0; i < 100_000; i++)
+            cache.get(1_000L + (i & 63));
+        var allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(allocated < 10_000L, is(true));
+    }
+}
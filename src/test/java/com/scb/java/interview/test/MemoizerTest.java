@@ -0,0 +1,104 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class MemoizerTest {
+
+    @Test
+    @DisplayName("Test functions of two, three and any number of arguments compute once per argument list")
+    public void testMultipleArguments() {
+        var calls = new AtomicInteger();
+        BiFunction<String, Integer, String> repeat = Memoizer.memoize((String text, Integer times) -> {
+            calls.incrementAndGet();
+            return text.repeat(times);
+        });
+        assertThat(repeat.apply("ab", 2), is("abab"));
+        assertThat(repeat.apply("ab", 2), is("abab"));
+        assertThat(repeat.apply("ab", 3), is("ababab"));
+        assertThat(calls.get(), is(2));
+
+        Memoizer.TriFunction<Integer, Integer, Integer, Integer> sum = Memoizer.memoize((a, b, c) -> {
+            calls.incrementAndGet();
+            return a + b + c;
+        });
+        assertThat(sum.apply(1, 2, 3), is(6));
+        assertThat(sum.apply(1, 2, 3), is(6));
+        assertThat(sum.apply(3, 2, 1), is(6));
+        assertThat(calls.get(), is(4));
+
+        Memoizer.VarargsFunction<Integer> length = Memoizer.memoizeVarargs(arguments -> {
+            calls.incrementAndGet();
+            return arguments.length;
+        });
+        assertThat(length.apply("a", "b", "c", "d"), is(4));
+        assertThat(length.apply("a", "b", "c", "d"), is(4));
+        assertThat(length.apply("a", "b"), is(2));
+        assertThat(calls.get(), is(6));
+    }
+
+    @Test
+    @DisplayName("Test recursive functions cache each sub-result")
+    public void testRecursion() {
+        var calls = new AtomicInteger();
+        Function<Integer, Long> fibonacci = Memoizer.recursive((Function<Integer, Long> self, Integer n) -> {
+            calls.incrementAndGet();
+            return n < 2 ? (long) n : self.apply(n - 1) + self.apply(n - 2);
+        });
+        assertThat(fibonacci.apply(90), is(2_880_067_194_370_816_120L));
+        assertThat(calls.get(), is(91));
+
+        BiFunction<Integer, Integer, Long> paths = Memoizer.recursive(
+                (BiFunction<Integer, Integer, Long> self, Integer rows, Integer columns) ->
+                        rows == 0 || columns == 0 ? 1L : self.apply(rows - 1, columns) + self.apply(rows, columns - 1));
+        assertThat(paths.apply(16, 16), is(601_080_390L));
+    }
+
+    @Test
+    @DisplayName("Test a call that needs its own result fails fast instead of waiting on itself")
+    public void testRecursiveCycle() {
+        Function<Integer, Integer> cyclic = Memoizer.recursive(
+                (Function<Integer, Integer> self, Integer n) -> n == 0 ? 0 : self.apply(n % 2 == 0 ? n - 1 : n + 1));
+        BiFunction<Integer, Integer, Integer> direct = Memoizer.recursive(
+                (BiFunction<Integer, Integer, Integer> self, Integer a, Integer b) -> self.apply(a, b));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertThrows(IllegalStateException.class, () -> cyclic.apply(3));
+            assertThrows(IllegalStateException.class, () -> direct.apply(1, 2));
+        });
+        assertThat(cyclic.apply(0), is(0));
+    }
+
+    @Test
+    @DisplayName("Test memoized hits of several arguments do not allocate")
+    public void testHitsDoNotAllocate() {
+        var threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        var allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+
+        BiFunction<Integer, Integer, Integer> product = Memoizer.memoize((Integer a, Integer b) -> a * b);
+        for (var i = 0; i < 100_000; i++)
+            product.apply(i & 15, i & 7);
+
+        var threadId = Thread.currentThread().getId();
+        var before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (var i = 0; i < 100_000; i++)
+            product.apply(i & 15, i & 7);
+        var allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(allocated < 10_000L, is(true));
+    }
+}
@@ -0,0 +1,54 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class MemoryEstimatorTest {
+
+    @Test
+    @DisplayName("Test strings and arrays are measured from their length")
+    public void testStringsAndArrays() {
+        assertThat(MemoryEstimator.estimate(null), is(0L));
+        assertThat(MemoryEstimator.estimate(new byte[0]), is(16L));
+        assertThat(MemoryEstimator.estimate(new byte[1_000]), is(1_016L));
+        assertThat(MemoryEstimator.estimate(new long[3]), is(40L));
+        assertThat(MemoryEstimator.estimate(new short[1_000]), is(2_016L));
+        assertThat(MemoryEstimator.estimate(new float[1_000]), is(4_016L));
+        assertThat(MemoryEstimator.estimate(new boolean[1_000]), is(1_016L));
+        assertThat(MemoryEstimator.estimate(""), is(40L));
+        assertThat(MemoryEstimator.estimate("a".repeat(100)), is(144L));
+        assertThat(MemoryEstimator.estimate("\u20AC".repeat(100)), is(240L));
+    }
+
+    @Test
+    @DisplayName("Test collections and maps include their elements")
+    public void testCollections() {
+        var strings = List.of("a".repeat(100), "b".repeat(100));
+        var list = MemoryEstimator.estimate(strings);
+        assertThat(list > 2 * 144L, is(true));
+        assertThat(MemoryEstimator.estimate(Map.of(1, strings)) > list, is(true));
+        assertThat(MemoryEstimator.estimate(new Object[]{new byte[100]}), is(24L + 120L));
+    }
+
+    @Test
+    @DisplayName("Test a collection containing itself is measured to a bounded depth")
+    public void testCycle() {
+        var list = new ArrayList<Object>();
+        list.add(list);
+        assertThat(MemoryEstimator.estimate(list) > 0, is(true));
+    }
+
+    @Test
+    @DisplayName("Test the estimating weigher adds the entry overhead and saturates")
+    public void testEstimatedBytes() {
+        Weigher<Integer, byte[]> weigher = Weigher.estimatedBytes();
+        assertThat(weigher.weigh(1, new byte[1_000]), is(MemoryEstimator.CACHE_ENTRY + 16 + 1_016));
+    }
+}
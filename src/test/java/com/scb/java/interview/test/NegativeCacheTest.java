@@ -0,0 +1,76 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+@DisplayName("Negative Cache Tests")
+class NegativeCacheTest {
+
+    private AtomicLong time;
+    private NegativeCache<Integer> negativeCache;
+
+    @BeforeEach
+    public void init() {
+        time = new AtomicLong();
+        negativeCache = new NegativeCache<>(100, 10, time::get);
+    }
+
+    @Test
+    @DisplayName("Absent keys are remembered until the time to live has passed")
+    public void testTimeToLive() {
+        negativeCache.add(1);
+        time.addAndGet(49);
+        assertThat(negativeCache.contains(1), is(true));
+
+        time.addAndGet(50);
+        assertThat(negativeCache.contains(1), is(true));
+
+        time.addAndGet(50);
+        assertThat(negativeCache.contains(1), is(false));
+    }
+
+    @Test
+    @DisplayName("A late rotation does not keep a key past the time to live")
+    public void testLateRotation() {
+        negativeCache.add(1);
+        time.addAndGet(99);
+        assertThat(negativeCache.contains(1), is(true));
+
+        time.addAndGet(2);
+        assertThat(negativeCache.contains(1), is(false));
+    }
+
+    @Test
+    @DisplayName("A long idle period drops both generations")
+    public void testIdleDropsEverything() {
+        negativeCache.add(1);
+        time.addAndGet(500);
+        assertThat(negativeCache.contains(1), is(false));
+        assertThat(negativeCache.size(), is(0L));
+    }
+
+    @Test
+    @DisplayName("The number of remembered keys stays within the maximum size")
+    public void testMaximumSize() {
+        for (var key = 0; key < 1_000; key++)
+            negativeCache.add(key);
+
+        assertThat(negativeCache.size(), is(lessThanOrEqualTo(10L)));
+        assertThat(negativeCache.contains(999), is(true));
+    }
+
+    @Test
+    @DisplayName("Removed keys are forgotten")
+    public void testRemove() {
+        negativeCache.add(1);
+        negativeCache.remove(1);
+        assertThat(negativeCache.contains(1), is(false));
+    }
+}
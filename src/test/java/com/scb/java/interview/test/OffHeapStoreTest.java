@@ -0,0 +1,100 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+@DisplayName("Off-Heap Store Tests")
+class OffHeapStoreTest {
+
+    static final Serializer<String> STRINGS = new Serializer<>() {
+        @Override
+        public byte[] serialize(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String deserialize(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    private OffHeapStore<Integer, String> store;
+
+    @BeforeEach
+    public void init() {
+        store = new OffHeapStore<>(STRINGS, new SlabAllocator(1024, 4096));
+    }
+
+    @Test
+    @DisplayName("A stored value is returned once with its write time")
+    public void testTake() {
+        assertThat(store.put(1, "One", 42L), is(true));
+
+        var record = store.take(1);
+        assertThat(record.getValue(), is("One"));
+        assertThat(record.getWriteTime(), is(42L));
+        assertThat(store.take(1), is(nullValue()));
+        assertThat(store.size(), is(0));
+    }
+
+    @Test
+    @DisplayName("Storing a key again replaces its value")
+    public void testReplace() {
+        store.put(1, "One", 0L);
+        store.put(1, "Uno", 0L);
+
+        assertThat(store.size(), is(1));
+        assertThat(store.take(1).getValue(), is("Uno"));
+    }
+
+    @Test
+    @DisplayName("Records larger than a slab are not stored")
+    public void testTooLarge() {
+        assertThat(store.put(1, "x".repeat(2048), 0L), is(false));
+        assertThat(store.size(), is(0));
+    }
+
+    @Test
+    @DisplayName("The oldest records of a size class make room for new ones")
+    public void testDropsOldest() {
+        for (var key = 0; key < 100; key++)
+            assertThat(store.put(key, "Value" + key, 0L), is(true));
+
+        assertThat(store.size(), is(64));
+        assertThat(store.take(0), is(nullValue()));
+        assertThat(store.take(99).getValue(), is("Value99"));
+        assertThat(store.reservedBytes(), is(4096L));
+    }
+
+    @Test
+    @DisplayName("A size class without a slab takes one over from another class")
+    public void testSlabReassignment() {
+        for (var key = 0; key < 64; key++)
+            assertThat(store.put(key, "Value" + key, 0L), is(true));
+
+        assertThat(store.put(1_000, "x".repeat(500), 0L), is(true));
+        assertThat(store.size(), is(49));
+        assertThat(store.take(0), is(nullValue()));
+        assertThat(store.take(63).getValue(), is("Value63"));
+        assertThat(store.take(1_000).getValue(), is("x".repeat(500)));
+        assertThat(store.reservedBytes(), is(4096L));
+    }
+
+    @Test
+    @DisplayName("Freed chunks are reused")
+    public void testReuse() {
+        for (var i = 0; i < 1_000; i++) {
+            store.put(i, "Value" + i, 0L);
+            store.remove(i);
+        }
+        assertThat(store.size(), is(0));
+        assertThat(store.reservedBytes(), is(1024L));
+    }
+}
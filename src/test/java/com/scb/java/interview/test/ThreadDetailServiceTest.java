@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.*;
 
 @DisplayName("AOP Thread Service Tests")
@@ -27,4 +28,14 @@ class ThreadDetailServiceTest {
         assertNotNull(ThreadDetailService.getThreadDetail("THREAD1"));
         assertThat(ThreadDetailService.getThreadDetail("THREAD1"), is(threadDetail));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("To Skip Details of Unnamed Threads")
+    public void toSkipUnnamedThreadDetails() throws InterruptedException {
+        var thread = new Thread(() -> ThreadDetailService.capture(ThreadDetail.CACHE_READ), "");
+        thread.start();
+        thread.join();
+
+        assertThat(ThreadDetailService.getThreadDetail(""), is(nullValue()));
+    }
+}
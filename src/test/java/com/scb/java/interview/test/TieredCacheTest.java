@@ -0,0 +1,138 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class TieredCacheTest {
+
+    private AtomicInteger loads;
+    private Function<Integer, String> dataService;
+
+    @BeforeEach
+    public void init() {
+        loads = new AtomicInteger();
+        dataService = key -> {
+            loads.incrementAndGet();
+            sleep(50);
+            return key > 0 ? "Value" + key : null;
+        };
+    }
+
+    @Test
+    @DisplayName("Test a key loaded by one node is served to another from the far tier")
+    public void testSharedFarTier() {
+        var farCache = new InProcessCacheTier<Integer, String>(Duration.ofMillis(2));
+        var first = new TieredCache<>(CacheBuilder.newBuilder().maximumSize(100), farCache, dataService);
+        var second = new TieredCache<>(CacheBuilder.newBuilder().maximumSize(100), farCache, dataService);
+
+        var start = System.nanoTime();
+        assertThat(first.get(1), is("Value1"));
+        var sourceMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        start = System.nanoTime();
+        assertThat(second.get(1), is("Value1"));
+        var farMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        var roundTrips = farCache.roundTrips();
+        assertThat(second.get(1), is("Value1"));
+        assertThat(farCache.roundTrips(), is(roundTrips));
+
+        assertThat(loads.get(), is(1));
+        assertThat(farCache.size(), is(1));
+        assertThat(farMillis < sourceMillis, is(true));
+        assertThat(second.nearCache().getIfPresent(1), is("Value1"));
+    }
+
+    @Test
+    @DisplayName("Test one builder configures several nodes and its batch loader loads far misses")
+    public void testSharedBuilder() {
+        var farCache = new InProcessCacheTier<Integer, String>(Duration.ofMillis(2));
+        var batches = new AtomicInteger();
+        var builder = CacheBuilder.newBuilder().maximumSize(100)
+                .batchLoader((Set<Integer> keys) -> {
+                    batches.incrementAndGet();
+                    return keys.stream().collect(Collectors.toMap(key -> key, key -> "Value" + key));
+                });
+        var first = new TieredCache<Integer, String>(builder, farCache, dataService);
+        var second = new TieredCache<Integer, String>(builder, farCache, dataService);
+
+        assertThat(first.getAll(List.of(1, 2, 3)), is(Map.of(1, "Value1", 2, "Value2", 3, "Value3")));
+        assertThat(second.getAll(List.of(1, 2, 3)), is(Map.of(1, "Value1", 2, "Value2", 3, "Value3")));
+        assertThat(batches.get(), is(1));
+        assertThat(loads.get(), is(0));
+    }
+
+    @Test
+    @DisplayName("Test bulk reads use one far tier round trip and fill both tiers")
+    public void testGetAll() {
+        var farCache = new InProcessCacheTier<Integer, String>();
+        farCache.put(1, "Far1");
+        var cache = new TieredCache<>(CacheBuilder.newBuilder().maximumSize(100), farCache, dataService);
+        var roundTrips = farCache.roundTrips();
+
+        Map<Integer, String> values = cache.getAll(List.of(1, 2, 0));
+
+        assertThat(values, is(Map.of(1, "Far1", 2, "Value2")));
+        assertThat(loads.get(), is(2));
+        assertThat(farCache.roundTrips() - roundTrips, is(2L));
+        assertThat(farCache.get(2), is("Value2"));
+        assertThat(farCache.get(0), is(nullValue()));
+        assertThat(cache.nearCache().getIfPresent(2), is("Value2"));
+    }
+
+    @Test
+    @DisplayName("Test writes and invalidations reach both tiers")
+    public void testWritesReachBothTiers() {
+        var farCache = new InProcessCacheTier<Integer, String>();
+        var cache = new TieredCache<>(CacheBuilder.newBuilder().maximumSize(100), farCache, dataService);
+
+        cache.put(1, "One");
+        cache.get(2);
+        cache.get(3);
+        assertThat(farCache.get(1), is("One"));
+
+        cache.invalidate(1);
+        assertThat(farCache.get(1), is(nullValue()));
+        assertThat(cache.nearCache().getIfPresent(1), is(nullValue()));
+
+        var roundTrips = farCache.roundTrips();
+        cache.invalidateIf(key -> key >= 2);
+        assertThat(farCache.roundTrips() - roundTrips, is(1L));
+        assertThat(farCache.get(2), is(nullValue()));
+        assertThat(farCache.get(3), is(nullValue()));
+        cache.get(3);
+        cache.invalidateIf(key -> key == 2);
+        assertThat(farCache.get(3), is("Value3"));
+        assertThat(cache.nearCache().getIfPresent(3), is("Value3"));
+    }
+
+    @Test
+    @DisplayName("Test the near tier must be bounded")
+    public void testUnboundedNearTier() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TieredCache<>(CacheBuilder.newBuilder(), new InProcessCacheTier<>(), dataService));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+@DisplayName("Timer Wheel Tests")
+class TimerWheelTest {
+
+    private TimerWheel<Integer, String> timerWheel;
+    private List<Integer> expired;
+
+    @BeforeEach
+    public void init() {
+        timerWheel = new TimerWheel<>(0L);
+        expired = new ArrayList<>();
+    }
+
+    @Test
+    @DisplayName("Entries expire only once their bucket has passed")
+    public void testAdvanceExpiresDueEntries() {
+        schedule(1, TimeUnit.SECONDS.toNanos(2));
+        schedule(2, TimeUnit.MINUTES.toNanos(5));
+        schedule(3, TimeUnit.HOURS.toNanos(3));
+
+        advance(TimeUnit.SECONDS.toNanos(1));
+        assertThat(expired, is(empty()));
+
+        advance(TimeUnit.SECONDS.toNanos(5));
+        assertThat(expired, contains(1));
+
+        advance(TimeUnit.MINUTES.toNanos(10));
+        assertThat(expired, contains(1, 2));
+
+        advance(TimeUnit.DAYS.toNanos(1));
+        assertThat(expired, contains(1, 2, 3));
+    }
+
+    @Test
+    @DisplayName("Descheduled entries never expire")
+    public void testDeschedule() {
+        var entry = schedule(1, TimeUnit.SECONDS.toNanos(2));
+        timerWheel.deschedule(entry);
+
+        advance(TimeUnit.MINUTES.toNanos(1));
+        assertThat(expired, is(empty()));
+    }
+
+    @Test
+    @DisplayName("Entries still live when their bucket passes are rescheduled")
+    public void testReschedule() {
+        var entry = schedule(1, TimeUnit.SECONDS.toNanos(2));
+
+        timerWheel.advance(TimeUnit.SECONDS.toNanos(3), e -> {
+            e.setTimerTime(TimeUnit.SECONDS.toNanos(30));
+            return false;
+        });
+        advance(TimeUnit.SECONDS.toNanos(10));
+        assertThat(expired, is(empty()));
+
+        advance(TimeUnit.SECONDS.toNanos(40));
+        assertThat(expired, contains(1));
+        assertThat(entry.getTimerTime(), is(TimeUnit.SECONDS.toNanos(30)));
+    }
+
+    private CacheEntry<Integer, String> schedule(int key, long time) {
+        var entry = new CacheEntry<>(key, "Value" + key, 1);
+        entry.setTimerTime(time);
+        timerWheel.schedule(entry);
+        return entry;
+    }
+
+    private void advance(long time) {
+        timerWheel.advance(time, entry -> expired.add(entry.getKey()));
+    }
+}
@@ -0,0 +1,135 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class WarmUpTest {
+
+    @Test
+    @DisplayName("Test a warm-up loads every key without exceeding its parallelism")
+    public void testParallelism() throws Exception {
+        var running = new AtomicInteger();
+        var maximumRunning = new AtomicInteger();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder().build(key -> {
+            maximumRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(5);
+            running.decrementAndGet();
+            return "Value" + key;
+        });
+        var keys = IntStream.range(0, 40).boxed().collect(Collectors.toList());
+        var progress = new CopyOnWriteArrayList<Long>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            var warmUp = cache.warmUp(keys, WarmUpOptions.<Integer>newOptions()
+                    .executor(executor)
+                    .parallelism(3)
+                    .onProgress(current -> progress.add(current.loaded())));
+
+            warmUp.completion().get(10, TimeUnit.SECONDS);
+            assertThat(warmUp.loaded(), is(40L));
+            assertThat(warmUp.total(), is(40L));
+            assertThat(warmUp.failed(), is(0L));
+            assertThat(maximumRunning.get() <= 3, is(true));
+            assertThat(progress.size(), is(41));
+            assertThat(progress.get(40), is(40L));
+            assertThat(cache.estimatedSize(), is(40L));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test a stream preload uses the batch loader and counts failed batches")
+    public void testBatches() throws Exception {
+        var batchSizes = new CopyOnWriteArrayList<Integer>();
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder()
+                .batchLoader((Set<Integer> keys) -> {
+                    if (keys.contains(13))
+                        throw new IllegalStateException("backend failure");
+                    batchSizes.add(keys.size());
+                    Map<Integer, String> values = new HashMap<>();
+                    keys.forEach(key -> values.put(key, "Value" + key));
+                    return values;
+                })
+                .build(key -> "Value" + key);
+        cache.get(0);
+
+        var warmUp = cache.preload(IntStream.range(0, 25).boxed(), WarmUpOptions.<Integer>newOptions().batchSize(10));
+        warmUp.completion().get(10, TimeUnit.SECONDS);
+
+        assertThat(warmUp.total(), is(-1L));
+        assertThat(warmUp.loaded(), is(15L));
+        assertThat(warmUp.failed(), is(10L));
+        assertThat(batchSizes.stream().sorted().collect(Collectors.toList()), is(List.of(5, 9)));
+    }
+
+    @Test
+    @DisplayName("Test a warm-up is paced to its rate limit")
+    public void testRateLimit() throws Exception {
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder().build(key -> "Value" + key);
+        var keys = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+
+        var start = System.nanoTime();
+        cache.warmUp(keys, WarmUpOptions.<Integer>newOptions().rateLimit(100)).completion().get(10, TimeUnit.SECONDS);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 180, is(true));
+    }
+
+    @Test
+    @DisplayName("Test a cancelled warm-up stops handing out keys while hits are still served")
+    public void testCancelAndHits() throws Exception {
+        var release = new CountDownLatch(1);
+        var loading = new CountDownLatch(1);
+        CacheImpl<Integer, String> cache = CacheBuilder.newBuilder().build(key -> {
+            if (key >= 0) {
+                loading.countDown();
+                await(release);
+            }
+            return "Value" + key;
+        });
+        cache.get(-1);
+        var keys = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+
+        var warmUp = cache.warmUp(keys, WarmUpOptions.<Integer>newOptions().parallelism(2));
+        loading.await();
+        assertThat(cache.get(-1), is("Value-1"));
+
+        warmUp.cancel();
+        release.countDown();
+        warmUp.completion().get(10, TimeUnit.SECONDS);
+        assertThat(warmUp.isCancelled(), is(true));
+        assertThat(warmUp.loaded() <= 3, is(true));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
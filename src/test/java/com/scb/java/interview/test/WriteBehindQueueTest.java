@@ -0,0 +1,192 @@
+package com.scb.java.interview.test;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class WriteBehindQueueTest {
+
+    private final Object owner = new Object();
+    private ConcurrentHashMap<Integer, String> store;
+    private List<Integer> batchSizes;
+    private AtomicBoolean failing;
+    private CountDownLatch release;
+    private CacheWriter<Integer, String> writer;
+
+    @BeforeEach
+    public void init() {
+        store = new ConcurrentHashMap<>();
+        batchSizes = new CopyOnWriteArrayList<>();
+        failing = new AtomicBoolean();
+        release = new CountDownLatch(0);
+        writer = new CacheWriter<>() {
+            @Override
+            public void write(Integer key, String value) {
+                writeAll(Map.of(key, value));
+            }
+
+            @Override
+            public void delete(Integer key) {
+                deleteAll(List.of(key));
+            }
+
+            @Override
+            public void writeAll(Map<Integer, String> values) {
+                await(release);
+                if (failing.get())
+                    throw new IllegalStateException("store unavailable");
+                batchSizes.add(values.size());
+                store.putAll(values);
+            }
+
+            @Override
+            public void deleteAll(Collection<Integer> keys) {
+                batchSizes.add(keys.size());
+                store.keySet().removeAll(keys);
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Test repeated writes to a waiting key are coalesced into one store write")
+    public void testCoalescing() {
+        var queue = WriteBehindQueue.start(writer, 100, TimeUnit.SECONDS.toNanos(10), 100, 100, owner);
+        for (var i = 0; i < 1_000; i++)
+            queue.write(i % 3, "Value" + i);
+        queue.delete(2);
+
+        assertThat(queue.pendingWrite(0).getValue(), is("Value999"));
+        assertThat(queue.pendingWrite(2).isDelete(), is(true));
+        assertThat(queue.pendingWrite(4), is(nullValue()));
+        assertThat(store.isEmpty(), is(true));
+
+        store.put(2, "Stale");
+        queue.flush();
+        assertThat(store, is(Map.of(0, "Value999", 1, "Value997")));
+        assertThat(batchSizes, is(List.of(2, 1)));
+        assertThat(queue.pending(), is(0));
+    }
+
+    @Test
+    @DisplayName("Test batches are flushed once full or once their oldest write is due")
+    public void testFlushBySizeAndDelay() throws InterruptedException {
+        var bySize = WriteBehindQueue.start(writer, 10, TimeUnit.SECONDS.toNanos(10), 100, 100, owner);
+        for (var i = 0; i < 25; i++)
+            bySize.write(i, "Value" + i);
+        awaitCondition(() -> store.size() == 20);
+        assertThat(batchSizes, is(List.of(10, 10)));
+
+        var byDelay = WriteBehindQueue.start(writer, 10, TimeUnit.MILLISECONDS.toNanos(50), 100, 100, owner);
+        byDelay.write(100, "Value100");
+        awaitCondition(() -> store.containsKey(100));
+    }
+
+    @Test
+    @DisplayName("Test writers wait while the queue is full")
+    public void testBackPressure() throws InterruptedException {
+        release = new CountDownLatch(1);
+        var queue = WriteBehindQueue.start(writer, 2, TimeUnit.MILLISECONDS.toNanos(1), 4, 100, owner);
+        var written = new AtomicInteger();
+        var producer = new Thread(() -> {
+            for (var i = 0; i < 10; i++) {
+                queue.write(i, "Value" + i);
+                written.incrementAndGet();
+            }
+        });
+        producer.start();
+
+        producer.join(300);
+        assertThat(producer.isAlive(), is(true));
+        assertThat(written.get() <= 6, is(true));
+
+        release.countDown();
+        producer.join(5_000);
+        queue.flush();
+        assertThat(store.size(), is(10));
+    }
+
+    @Test
+    @DisplayName("Test a failed batch stays queued and is retried")
+    public void testRetry() {
+        failing.set(true);
+        var queue = WriteBehindQueue.start(writer, 10, TimeUnit.MILLISECONDS.toNanos(20), 100, 100, owner);
+        queue.write(1, "One");
+
+        assertThrows(IllegalStateException.class, queue::flush);
+        assertThat(queue.failures() >= 1, is(true));
+        assertThat(queue.pendingWrite(1).getValue(), is("One"));
+        queue.write(1, "Uno");
+
+        failing.set(false);
+        queue.flush();
+        assertThat(store, is(Map.of(1, "Uno")));
+    }
+
+    @Test
+    @DisplayName("Test a failing key is retried on its own and dropped after its last attempt")
+    public void testFailingKey() throws InterruptedException {
+        var dropped = new ConcurrentHashMap<Integer, String>();
+        var attempts = new AtomicInteger();
+        var queue = WriteBehindQueue.start(new CacheWriter<Integer, String>() {
+            @Override
+            public void write(Integer key, String value) {
+                if (key == 13) {
+                    attempts.incrementAndGet();
+                    throw new IllegalArgumentException("rejected " + key);
+                }
+                store.put(key, value);
+            }
+
+            @Override
+            public void delete(Integer key) {
+                store.remove(key);
+            }
+
+            @Override
+            public void writeFailed(Integer key, String value, RuntimeException cause) {
+                dropped.put(key, value);
+            }
+        }, 10, TimeUnit.MILLISECONDS.toNanos(1), 20, 3, owner);
+        for (var i = 10; i < 20; i++)
+            queue.write(i, "Value" + i);
+
+        awaitCondition(() -> dropped.containsKey(13));
+        assertThat(store.size(), is(9));
+        assertThat(dropped, is(Map.of(13, "Value13")));
+        assertThat(attempts.get(), is(4));
+        assertThat(queue.dropped(), is(1L));
+        assertThat(queue.pendingWrite(13), is(nullValue()));
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() < deadline, is(true));
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}